@@ -0,0 +1,244 @@
+/* ===================================================================
+ * AsyncIndexListener.java
+ *
+ * Created Oct 19, 2026 11:40:05 AM
+ *
+ * Copyright (c) 2026 Matt Magoffin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.lucene;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.log4j.Logger;
+
+/**
+ * IndexListener that delivers events to another IndexListener on its own
+ * thread, so a slow listener does not hold up indexing.
+ *
+ * <p>Events are queued in batches (normally all the events of one index
+ * queue flush) and delivered in the order they were published. The queue
+ * is bounded; when it is full new batches are dropped and counted in
+ * {@link #getDroppedEventCount()} rather than blocking the publisher.</p>
+ *
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class AsyncIndexListener implements BatchIndexListener {
+
+	/** The default value for the <code>queueSize</code> property. */
+	public static final int DEFAULT_QUEUE_SIZE = 1000;
+
+	private final IndexListener delegate;
+	private final ThreadPoolExecutor executor;
+	private final AtomicLong deliveredEventCount = new AtomicLong(0);
+	private final AtomicLong droppedEventCount = new AtomicLong(0);
+	private final AtomicLong droppedBatchCount = new AtomicLong(0);
+	private final AtomicLong failedEventCount = new AtomicLong(0);
+
+	private final Logger log = Logger.getLogger(AsyncIndexListener.class);
+
+	/**
+	 * Construct with a listener and the default queue size.
+	 * @param delegate the listener to deliver events to
+	 */
+	public AsyncIndexListener(IndexListener delegate) {
+		this(delegate, DEFAULT_QUEUE_SIZE);
+	}
+
+	/**
+	 * Construct with a listener and queue size.
+	 * @param delegate the listener to deliver events to
+	 * @param queueSize the maximum number of event batches to queue
+	 */
+	public AsyncIndexListener(final IndexListener delegate, int queueSize) {
+		if ( delegate == null ) {
+			throw new IllegalArgumentException("The delegate parameter is required");
+		}
+		this.delegate = delegate;
+		this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(queueSize),
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "AsyncIndexListener-" +delegate);
+						t.setDaemon(true);
+						return t;
+					}
+				},
+				new RejectedExecutionHandler() {
+					@Override
+					public void rejectedExecution(Runnable r, ThreadPoolExecutor e) {
+						droppedBatchCount.incrementAndGet();
+						long dropped = droppedEventCount.addAndGet(((Batch)r).events.size());
+						if ( log.isDebugEnabled() ) {
+							log.debug("Event queue full for [" +delegate +"], "
+									+dropped +" events dropped");
+						}
+					}
+				});
+	}
+
+	private final class Batch implements Runnable {
+		private final List<IndexEvent> events;
+
+		private Batch(List<IndexEvent> events) {
+			this.events = events;
+		}
+
+		@Override
+		public void run() {
+			if ( delegate instanceof BatchIndexListener ) {
+				try {
+					((BatchIndexListener)delegate).onIndexEvents(events);
+					deliveredEventCount.addAndGet(events.size());
+				} catch ( Throwable t ) {
+					failedEventCount.addAndGet(events.size());
+					log.warn("Exception delivering IndexEvents to [" +delegate +"]", t);
+				}
+				return;
+			}
+			for ( IndexEvent event : events ) {
+				try {
+					delegate.onIndexEvent(event);
+					deliveredEventCount.incrementAndGet();
+				} catch ( Throwable t ) {
+					failedEventCount.incrementAndGet();
+					log.warn("Exception delivering IndexEvent to [" +delegate +"]", t);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void onIndexEvent(IndexEvent event) {
+		onIndexEvents(Collections.singletonList(event));
+	}
+
+	/**
+	 * Queue a batch of events for delivery.
+	 *
+	 * <p>The list must not be modified after being passed to this method.
+	 * If the delegate is a {@link BatchIndexListener} the batch is passed
+	 * to it in one call.</p>
+	 *
+	 * @param events the events to deliver
+	 */
+	@Override
+	public void onIndexEvents(List<IndexEvent> events) {
+		if ( events == null || events.isEmpty() ) {
+			return;
+		}
+		executor.execute(new Batch(events));
+	}
+
+	/**
+	 * Stop accepting events and wait for queued events to be delivered.
+	 *
+	 * <p>Events published after this is called are dropped. Events still
+	 * queued when the timeout expires are dropped too, and the number 
+	 * dropped is logged; an event being delivered at that point is allowed
+	 * to finish.</p>
+	 *
+	 * @param timeoutMs the maximum number of milliseconds to wait
+	 */
+	public void shutdown(long timeoutMs) {
+		executor.shutdown();
+		try {
+			if ( executor.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS) ) {
+				return;
+			}
+			log.warn("Timeout waiting for queued IndexEvents to be delivered to ["
+					+delegate +"]");
+		} catch ( InterruptedException e ) {
+			log.warn("Interrupted waiting for queued IndexEvents to be delivered to ["
+					+delegate +"]");
+		}
+		List<Runnable> undelivered = new ArrayList<Runnable>();
+		executor.getQueue().drainTo(undelivered);
+		long count = 0;
+		for ( Runnable r : undelivered ) {
+			count += ((Batch)r).events.size();
+		}
+		if ( count > 0 ) {
+			droppedBatchCount.addAndGet(undelivered.size());
+			droppedEventCount.addAndGet(count);
+			log.warn(count +" queued IndexEvents not delivered to [" +delegate +"]");
+		}
+	}
+
+	/**
+	 * @return the listener events are delivered to
+	 */
+	public IndexListener getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * @return the number of event batches waiting to be delivered
+	 */
+	public int getQueuedBatchCount() {
+		return executor.getQueue().size();
+	}
+
+	/**
+	 * @return the number of events successfully delivered
+	 */
+	public long getDeliveredEventCount() {
+		return deliveredEventCount.get();
+	}
+
+	/**
+	 * @return the number of events dropped because the queue was full, or
+	 * because they were still queued when shut down
+	 */
+	public long getDroppedEventCount() {
+		return droppedEventCount.get();
+	}
+
+	/**
+	 * @return the number of event batches dropped because the queue was full,
+	 * or because they were still queued when shut down
+	 */
+	public long getDroppedBatchCount() {
+		return droppedBatchCount.get();
+	}
+
+	/**
+	 * @return the number of events the delegate threw an exception for
+	 */
+	public long getFailedEventCount() {
+		return failedEventCount.get();
+	}
+
+	@Override
+	public String toString() {
+		return "AsyncIndexListener{" +delegate +"}";
+	}
+
+}
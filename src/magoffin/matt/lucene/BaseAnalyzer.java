@@ -24,6 +24,7 @@
 
 package magoffin.matt.lucene;
 
+import java.io.IOException;
 import java.io.Reader;
 
 import org.apache.lucene.analysis.Analyzer;
@@ -31,6 +32,7 @@ import org.apache.lucene.analysis.LowerCaseFilter;
 import org.apache.lucene.analysis.StopAnalyzer;
 import org.apache.lucene.analysis.StopFilter;
 import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
 import org.apache.lucene.analysis.standard.StandardFilter;
 import org.apache.lucene.analysis.standard.StandardTokenizer;
 
@@ -45,6 +47,14 @@ import org.apache.lucene.analysis.standard.StandardTokenizer;
  *   <li>LowerCaseFilter</li>
  * </ol>
  * 
+ * <p>The {@link #reusableTokenStream(String, Reader)} method caches one
+ * filter chain per field type for each thread, so that bulk indexing does
+ * not create a new chain for every field of every document. If an extending
+ * class overrides {@link #tokenStream(String, Reader)} without also 
+ * overriding {@link #reusableTokenStream(String, Reader)}, the chains are
+ * not cached and <code>tokenStream()</code> is called every time, so the
+ * extending class's streams are always used.</p>
+ * 
  * @author Matt Magoffin (spamsqr@msqr.us)
  * @version $Revision: 1.1 $ $Date: 2006/07/10 04:22:34 $
  */
@@ -53,27 +63,98 @@ public class BaseAnalyzer extends Analyzer {
 	/** The field key for general text. */
 	public static final char FIELD_GENERAL_TEXT = 'G';
 	
+	private final boolean reuseStreams;
+	
+	/**
+	 * Default constructor.
+	 */
+	public BaseAnalyzer() {
+		super();
+		boolean overridden = true;
+		try {
+			overridden = getClass().getMethod("tokenStream", String.class, Reader.class)
+				.getDeclaringClass() != BaseAnalyzer.class;
+		} catch ( NoSuchMethodException e ) {
+			// should not happen, but don't reuse if it does
+		}
+		this.reuseStreams = !overridden;
+	}
+	
 	@Override
 	public TokenStream tokenStream(String field, Reader reader) {
 		char fieldChar = field.charAt(0);
 		TokenStream result = null;
 		switch (fieldChar) {
 			case FIELD_GENERAL_TEXT:
-				result = new StandardTokenizer(reader);
-				result = new StandardFilter(result);
-				result = new LowerCaseFilter(result);
-				result = new RegexpSplitFilter(result, "[@.]"); // tokenize emails
-				result = new StopFilter(result, StopAnalyzer.ENGLISH_STOP_WORDS);
-				// result = new PorterStemFilter(result);
+				result = createGeneralTextStream(new StandardTokenizer(reader));
 				break;
 				
 			default:
-				result = new StandardTokenizer(reader);
-				result = new StandardFilter(result);
-				result = new LowerCaseFilter(result);
+				result = createDefaultStream(new StandardTokenizer(reader));
 				break;
 		}
 		return result;
 	}
 
+	@Override
+	public TokenStream reusableTokenStream(String field, Reader reader) 
+	throws IOException {
+		if ( !reuseStreams ) {
+			return super.reusableTokenStream(field, reader);
+		}
+		SavedStreams streams = (SavedStreams)getPreviousTokenStream();
+		if ( streams == null ) {
+			streams = new SavedStreams();
+			setPreviousTokenStream(streams);
+		}
+		char fieldChar = field.charAt(0);
+		switch (fieldChar) {
+			case FIELD_GENERAL_TEXT:
+				if ( streams.generalText == null ) {
+					streams.generalTextSource = new StandardTokenizer(reader);
+					streams.generalText = createGeneralTextStream(streams.generalTextSource);
+					return streams.generalText;
+				}
+				return reset(streams.generalTextSource, streams.generalText, reader);
+				
+			default:
+				if ( streams.standard == null ) {
+					streams.standardSource = new StandardTokenizer(reader);
+					streams.standard = createDefaultStream(streams.standardSource);
+					return streams.standard;
+				}
+				return reset(streams.standardSource, streams.standard, reader);
+		}
+	}
+	
+	private TokenStream reset(Tokenizer source, TokenStream result, Reader reader) 
+	throws IOException {
+		source.reset(reader);
+		result.reset();
+		return result;
+	}
+	
+	private TokenStream createGeneralTextStream(Tokenizer source) {
+		TokenStream result = new StandardFilter(source);
+		result = new LowerCaseFilter(result);
+		result = new RegexpSplitFilter(result, "[@.]"); // tokenize emails
+		result = new StopFilter(result, StopAnalyzer.ENGLISH_STOP_WORDS);
+		// result = new PorterStemFilter(result);
+		return result;
+	}
+	
+	private TokenStream createDefaultStream(Tokenizer source) {
+		TokenStream result = new StandardFilter(source);
+		result = new LowerCaseFilter(result);
+		return result;
+	}
+	
+	/** The per-thread filter chains used by reusableTokenStream(). */
+	private static final class SavedStreams {
+		private Tokenizer generalTextSource;
+		private TokenStream generalText;
+		private Tokenizer standardSource;
+		private TokenStream standard;
+	}
+
 }
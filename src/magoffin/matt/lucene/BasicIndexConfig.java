@@ -24,21 +24,39 @@
 
 package magoffin.matt.lucene;
 
-import magoffin.matt.lucene.LucenePlugin.LuceneIndexConfig;
+import java.util.Collections;
+import java.util.List;
+import magoffin.matt.lucene.LucenePlugin.ExtendedIndexConfig;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.LogMergePolicy;
 
 /**
- * Basic implementation of the LuceneIndexConfig API.
+ * Basic implementation of the ExtendedIndexConfig API.
  * 
  * @author matt.magoffin
  * @version $Revision: 1.1 $ $Date: 2006/07/10 04:22:34 $
  */
-public class BasicIndexConfig implements LuceneIndexConfig {
+public class BasicIndexConfig implements ExtendedIndexConfig {
 	
 	private int minMergeDocs = IndexWriter.DEFAULT_MAX_BUFFERED_DOCS;
 	
 	private int mergeFactor = LogMergePolicy.DEFAULT_MERGE_FACTOR;
+	
+	private double ramBufferSizeMB = 0;
+	
+	private double maxMergeMB = 0;
+	
+	private boolean useCompoundFile = true;
+	
+	private int termIndexInterval = 0;
+	
+	private List<String> warmUpQueries = Collections.emptyList();
+	
+	private List<String> warmUpSortFields = Collections.emptyList();
+	
+	private List<String> fuzzyTermIndexFields = Collections.emptyList();
+	
+	private List<String> suggestFields = Collections.emptyList();
 
 	/**
 	 * Default constructor.
@@ -67,6 +85,46 @@ public class BasicIndexConfig implements LuceneIndexConfig {
 		return mergeFactor;
 	}
 
+	@Override
+	public double getRamBufferSizeMB() {
+		return ramBufferSizeMB;
+	}
+
+	@Override
+	public double getMaxMergeMB() {
+		return maxMergeMB;
+	}
+
+	@Override
+	public boolean isUseCompoundFile() {
+		return useCompoundFile;
+	}
+
+	@Override
+	public int getTermIndexInterval() {
+		return termIndexInterval;
+	}
+
+	@Override
+	public List<String> getWarmUpQueries() {
+		return warmUpQueries;
+	}
+
+	@Override
+	public List<String> getWarmUpSortFields() {
+		return warmUpSortFields;
+	}
+
+	@Override
+	public List<String> getFuzzyTermIndexFields() {
+		return fuzzyTermIndexFields;
+	}
+
+	@Override
+	public List<String> getSuggestFields() {
+		return suggestFields;
+	}
+
 	/**
 	 * @param mergeFactor The mergeFactor to set.
 	 */
@@ -81,4 +139,60 @@ public class BasicIndexConfig implements LuceneIndexConfig {
 		this.minMergeDocs = minMergeDocs;
 	}
 
+	/**
+	 * @param ramBufferSizeMB The ramBufferSizeMB to set.
+	 */
+	public void setRamBufferSizeMB(double ramBufferSizeMB) {
+		this.ramBufferSizeMB = ramBufferSizeMB;
+	}
+
+	/**
+	 * @param maxMergeMB The maxMergeMB to set.
+	 */
+	public void setMaxMergeMB(double maxMergeMB) {
+		this.maxMergeMB = maxMergeMB;
+	}
+
+	/**
+	 * @param useCompoundFile The useCompoundFile to set.
+	 */
+	public void setUseCompoundFile(boolean useCompoundFile) {
+		this.useCompoundFile = useCompoundFile;
+	}
+
+	/**
+	 * @param termIndexInterval The termIndexInterval to set.
+	 */
+	public void setTermIndexInterval(int termIndexInterval) {
+		this.termIndexInterval = termIndexInterval;
+	}
+
+	/**
+	 * @param warmUpQueries The warmUpQueries to set.
+	 */
+	public void setWarmUpQueries(List<String> warmUpQueries) {
+		this.warmUpQueries = warmUpQueries;
+	}
+
+	/**
+	 * @param warmUpSortFields The warmUpSortFields to set.
+	 */
+	public void setWarmUpSortFields(List<String> warmUpSortFields) {
+		this.warmUpSortFields = warmUpSortFields;
+	}
+
+	/**
+	 * @param fuzzyTermIndexFields The fuzzyTermIndexFields to set.
+	 */
+	public void setFuzzyTermIndexFields(List<String> fuzzyTermIndexFields) {
+		this.fuzzyTermIndexFields = fuzzyTermIndexFields;
+	}
+
+	/**
+	 * @param suggestFields The suggestFields to set.
+	 */
+	public void setSuggestFields(List<String> suggestFields) {
+		this.suggestFields = suggestFields;
+	}
+
 }
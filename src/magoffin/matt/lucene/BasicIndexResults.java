@@ -0,0 +1,119 @@
+/* ===================================================================
+ * BasicIndexResults.java
+ *
+ * Created Oct 19, 2026 4:22:51 PM
+ *
+ * Copyright (c) 2026 Matt Magoffin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.lucene;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Basic implementation of IndexResults that can be updated while indexing
+ * is in progress and read from other threads.
+ *
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class BasicIndexResults implements IndexResults {
+
+	private volatile int numProcessed = 0;
+	private volatile int numIndexed = 0;
+	private volatile boolean finished = false;
+	private final Map<Serializable, String> errors 
+		= Collections.synchronizedMap(new LinkedHashMap<Serializable, String>());
+
+	@Override
+	public int getNumProcessed() {
+		return numProcessed;
+	}
+
+	@Override
+	public int getNumIndexed() {
+		return numIndexed;
+	}
+
+	@Override
+	public boolean isFinished() {
+		return finished;
+	}
+
+	@Override
+	public Map<? extends Serializable, String> getErrors() {
+		return errors;
+	}
+	
+	/**
+	 * Record an item as processed and indexed.
+	 * 
+	 * <p>This should only be called by the indexing thread.</p>
+	 */
+	public void indexed() {
+		numProcessed++;
+		numIndexed++;
+	}
+	
+	/**
+	 * Record an item as processed but failed.
+	 * 
+	 * <p>This should only be called by the indexing thread.</p>
+	 * 
+	 * @param id the ID of the item
+	 * @param message the error message
+	 */
+	public void failed(Serializable id, String message) {
+		numProcessed++;
+		errors.put(id, message);
+	}
+
+	/**
+	 * @param numProcessed the numProcessed to set
+	 */
+	public void setNumProcessed(int numProcessed) {
+		this.numProcessed = numProcessed;
+	}
+
+	/**
+	 * @param numIndexed the numIndexed to set
+	 */
+	public void setNumIndexed(int numIndexed) {
+		this.numIndexed = numIndexed;
+	}
+
+	/**
+	 * @param finished the finished to set
+	 */
+	public void setFinished(boolean finished) {
+		this.finished = finished;
+	}
+
+	@Override
+	public String toString() {
+		return "BasicIndexResults{processed=" +numProcessed +",indexed=" +numIndexed
+			+",errors=" +errors.size() +",finished=" +finished +"}";
+	}
+
+}
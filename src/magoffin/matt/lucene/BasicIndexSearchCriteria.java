@@ -0,0 +1,148 @@
+/* ===================================================================
+ * BasicIndexSearchCriteria.java
+ *
+ * Created Oct 19, 2026 1:19:05 PM
+ *
+ * Copyright (c) 2026 Matt Magoffin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.lucene;
+
+import java.util.List;
+import magoffin.matt.dao.SortDescriptor;
+
+/**
+ * Basic implementation of IndexSearchCriteria.
+ *
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class BasicIndexSearchCriteria implements IndexSearchCriteria {
+	
+	/** The default value for the <code>maxFacetValues</code> property. */
+	public static final int DEFAULT_MAX_FACET_VALUES = 10;
+
+	private int maxResults = 0;
+	private int pageSize = 0;
+	private int page = 1;
+	private boolean countOnly = false;
+	private List<SortDescriptor> sortDescriptors = null;
+	private List<String> facetFields = null;
+	private int maxFacetValues = DEFAULT_MAX_FACET_VALUES;
+	private List<String> filterNames = null;
+
+	@Override
+	public int getMaxResults() {
+		return maxResults;
+	}
+
+	@Override
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	@Override
+	public int getPage() {
+		return page;
+	}
+
+	@Override
+	public boolean isCountOnly() {
+		return countOnly;
+	}
+
+	@Override
+	public List<SortDescriptor> getSortDescriptors() {
+		return sortDescriptors;
+	}
+
+	@Override
+	public List<String> getFacetFields() {
+		return facetFields;
+	}
+
+	@Override
+	public int getMaxFacetValues() {
+		return maxFacetValues;
+	}
+
+	@Override
+	public List<String> getFilterNames() {
+		return filterNames;
+	}
+
+	/**
+	 * @param maxResults the maxResults to set
+	 */
+	public void setMaxResults(int maxResults) {
+		this.maxResults = maxResults;
+	}
+
+	/**
+	 * @param pageSize the pageSize to set
+	 */
+	public void setPageSize(int pageSize) {
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * @param page the page to set
+	 */
+	public void setPage(int page) {
+		this.page = page;
+	}
+
+	/**
+	 * @param countOnly the countOnly to set
+	 */
+	public void setCountOnly(boolean countOnly) {
+		this.countOnly = countOnly;
+	}
+
+	/**
+	 * @param sortDescriptors the sortDescriptors to set
+	 */
+	public void setSortDescriptors(List<SortDescriptor> sortDescriptors) {
+		this.sortDescriptors = sortDescriptors;
+	}
+
+	/**
+	 * @param facetFields the facetFields to set
+	 */
+	public void setFacetFields(List<String> facetFields) {
+		this.facetFields = facetFields;
+	}
+
+	/**
+	 * @param maxFacetValues the maxFacetValues to set
+	 */
+	public void setMaxFacetValues(int maxFacetValues) {
+		this.maxFacetValues = maxFacetValues;
+	}
+
+	/**
+	 * @param filterNames the filterNames to set
+	 */
+	public void setFilterNames(List<String> filterNames) {
+		this.filterNames = filterNames;
+	}
+
+}
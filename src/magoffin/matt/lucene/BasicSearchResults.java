@@ -28,6 +28,7 @@ package magoffin.matt.lucene;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Basic implementation of SearchResults.
@@ -35,10 +36,13 @@ import java.util.List;
  * @author Matt Magoffin (spamsqr@msqr.us)
  * @version $Revision: 1.2 $ $Date: 2007/03/07 03:45:00 $
  */
-public class BasicSearchResults implements SearchResults {
+public class BasicSearchResults implements IndexSearchResults {
 	
 	private List<?> matches;
 	private int totalMatches;
+	private Map<String, Map<String, Integer>> facetCounts;
+	private SearchCursor nextCursor;
+	private boolean partialResults = false;
 	
 	/**
 	 * Default constructor.
@@ -46,6 +50,7 @@ public class BasicSearchResults implements SearchResults {
 	public BasicSearchResults() {
 		matches = Collections.emptyList();
 		totalMatches = 0;
+		facetCounts = Collections.emptyMap();
 	}
 
 	/**
@@ -57,6 +62,7 @@ public class BasicSearchResults implements SearchResults {
 	public BasicSearchResults(List<?> matches, int totalMatches) {
 		this.matches = matches;
 		this.totalMatches = totalMatches;
+		this.facetCounts = Collections.emptyMap();
 	}
 
 	@Override
@@ -69,6 +75,21 @@ public class BasicSearchResults implements SearchResults {
 		return totalMatches;
 	}
 	
+	@Override
+	public Map<String, Map<String, Integer>> getFacetCounts() {
+		return facetCounts;
+	}
+	
+	@Override
+	public SearchCursor getNextCursor() {
+		return nextCursor;
+	}
+	
+	@Override
+	public boolean isPartialResults() {
+		return partialResults;
+	}
+	
 	/**
 	 * @param matches the matches to set
 	 */
@@ -82,5 +103,26 @@ public class BasicSearchResults implements SearchResults {
 	public void setTotalMatches(int totalMatches) {
 		this.totalMatches = totalMatches;
 	}
+	
+	/**
+	 * @param facetCounts the facetCounts to set
+	 */
+	public void setFacetCounts(Map<String, Map<String, Integer>> facetCounts) {
+		this.facetCounts = facetCounts;
+	}
+	
+	/**
+	 * @param nextCursor the nextCursor to set
+	 */
+	public void setNextCursor(SearchCursor nextCursor) {
+		this.nextCursor = nextCursor;
+	}
+	
+	/**
+	 * @param partialResults the partialResults to set
+	 */
+	public void setPartialResults(boolean partialResults) {
+		this.partialResults = partialResults;
+	}
 
 }
@@ -0,0 +1,53 @@
+/* ===================================================================
+ * BatchIndexListener.java
+ *
+ * Created Oct 19, 2026 12:05:31 PM
+ *
+ * Copyright (c) 2026 Matt Magoffin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.lucene;
+
+import java.util.List;
+
+/**
+ * IndexListener that can handle a batch of IndexEvent events in one call.
+ * 
+ * <p>Events from one flush of the index update queue are passed to 
+ * {@link #onIndexEvents(List)} together, in the order they happened. 
+ * Events published individually are still passed to 
+ * {@link IndexListener#onIndexEvent(IndexEvent)}.</p>
+ *
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public interface BatchIndexListener extends IndexListener {
+
+	/**
+	 * Handle a batch of IndexEvent events.
+	 * 
+	 * <p>The list must not be modified.</p>
+	 * 
+	 * @param events the events
+	 */
+	public void onIndexEvents(List<IndexEvent> events);
+
+}
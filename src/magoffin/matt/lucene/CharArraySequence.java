@@ -0,0 +1,118 @@
+/* ===================================================================
+ * CharArraySequence.java
+ *
+ * Created Oct 19, 2026 11:02:17 AM
+ *
+ * Copyright (c) 2026 Matt Magoffin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.lucene;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A reusable CharSequence over a growable character array, for running
+ * a Matcher against tokenizer input without copying it into a String.
+ *
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+final class CharArraySequence implements CharSequence {
+
+	private char[] buffer;
+	private int length;
+
+	/**
+	 * Construct with an initial buffer size.
+	 * @param initialSize the initial buffer size
+	 */
+	CharArraySequence(int initialSize) {
+		this.buffer = new char[initialSize];
+		this.length = 0;
+	}
+
+	/**
+	 * Replace the contents of this sequence with all characters from a Reader.
+	 * @param in the Reader to read
+	 * @return the number of characters read
+	 * @throws IOException if an IO error occurs
+	 */
+	int read(Reader in) throws IOException {
+		length = 0;
+		int numRead;
+		while ( (numRead = in.read(buffer, length, buffer.length - length)) != -1 ) {
+			length += numRead;
+			if ( length == buffer.length ) {
+				grow(length + 1);
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * Replace the contents of this sequence with a copy of some characters.
+	 * @param src the characters to copy
+	 * @param len the number of characters to copy
+	 */
+	void set(char[] src, int len) {
+		if ( len > buffer.length ) {
+			buffer = new char[Math.max(len, buffer.length * 2)];
+		}
+		System.arraycopy(src, 0, buffer, 0, len);
+		length = len;
+	}
+
+	/**
+	 * Get the underlying buffer, valid up to {@link #length()}.
+	 * @return the buffer
+	 */
+	char[] buffer() {
+		return buffer;
+	}
+
+	private void grow(int minSize) {
+		char[] newBuffer = new char[Math.max(minSize, buffer.length * 2)];
+		System.arraycopy(buffer, 0, newBuffer, 0, length);
+		buffer = newBuffer;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		return buffer[index];
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		return new String(buffer, start, end - start);
+	}
+
+	@Override
+	public String toString() {
+		return new String(buffer, 0, length);
+	}
+
+}
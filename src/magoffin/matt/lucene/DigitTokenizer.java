@@ -26,18 +26,18 @@ package magoffin.matt.lucene;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.io.StringWriter;
 
 import org.apache.lucene.analysis.Token;
 import org.apache.lucene.analysis.Tokenizer;
-import org.springframework.util.FileCopyUtils;
 
 /**
  * Filter a stream into a single token of only digits.
  * 
- * <p>This class is not thread-safe. It is also geared for small 
- * input streams, as it uses a regular expression to replace non-digits 
- * with an empty string.</p>
+ * <p>This class is not thread-safe. The input is read through a reusable
+ * character buffer and digits are copied directly into the token's term
+ * buffer, so the input is never held in memory as a whole. When a 
+ * <code>maxLength</code> is set, at most twice that many digits are 
+ * buffered at any time.</p>
  * 
  * <p>The configurable properties of this class are:</p>
  * 
@@ -53,6 +53,9 @@ import org.springframework.util.FileCopyUtils;
  */
 public class DigitTokenizer extends Tokenizer {
 	
+	private static final int IO_BUFFER_SIZE = 256;
+	
+	private final char[] ioBuffer = new char[IO_BUFFER_SIZE];
 	private boolean complete = false;
 	private int maxLength = -1;
 	
@@ -75,23 +78,53 @@ public class DigitTokenizer extends Tokenizer {
 	}
 
 	@Override
-	public Token next() throws IOException {
+	public Token next(Token reusableToken) throws IOException {
 		if ( complete ) {
 			return null;
 		}
 		
-		// read in entire string
-		StringWriter out = new StringWriter();
-		FileCopyUtils.copy(this.input, out);
-		int end = out.getBuffer().length();
-		String numbers = out.toString().replaceAll("\\D", "");
-		
-		if ( maxLength > 0 && numbers.length() > maxLength ) {
-			numbers = numbers.substring(numbers.length() - maxLength);
+		reusableToken.clear();
+		char[] term = reusableToken.termBuffer();
+		int length = 0;
+		int end = 0;
+		int numRead;
+		while ( (numRead = input.read(ioBuffer)) != -1 ) {
+			end += numRead;
+			for ( int i = 0; i < numRead; i++ ) {
+				char c = ioBuffer[i];
+				if ( c < '0' || c > '9' ) {
+					continue;
+				}
+				if ( length == term.length ) {
+					term = reusableToken.resizeTermBuffer(length + 1);
+				}
+				term[length++] = c;
+				if ( maxLength > 0 && length == maxLength * 2 ) {
+					// discard digits we know will be trimmed
+					length = trimLeft(term, length);
+				}
+			}
+		}
+		if ( maxLength > 0 && length > maxLength ) {
+			length = trimLeft(term, length);
 		}
 		complete = true;
-		char[] numChars = numbers.toCharArray();
-		return new Token(numChars, 0, numChars.length, 0, end);
+		reusableToken.setTermLength(length);
+		reusableToken.setStartOffset(0);
+		reusableToken.setEndOffset(end);
+		reusableToken.setType(Token.DEFAULT_TYPE);
+		return reusableToken;
+	}
+	
+	private int trimLeft(char[] term, int length) {
+		System.arraycopy(term, length - maxLength, term, 0, maxLength);
+		return maxLength;
+	}
+	
+	@Override
+	public void reset(Reader reader) throws IOException {
+		super.reset(reader);
+		complete = false;
 	}
 	
 	/**
@@ -0,0 +1,316 @@
+/* ===================================================================
+ * FuzzyTermIndex.java
+ *
+ * Created Oct 19, 2026 4:48:19 PM
+ *
+ * Copyright (c) 2026 Matt Magoffin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.lucene;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermEnum;
+
+/**
+ * An in-memory bigram index of the terms of one index field, for finding 
+ * fuzzy match candidates without scoring every term in the field.
+ * 
+ * <p>Each term is split into overlapping two-character grams, including
+ * a gram for each end of the term. A term within edit distance 
+ * <em>d</em> of a query term of length <em>n</em> must share at least 
+ * <em>n + 1 - 2d</em> of those grams with it, so only terms sharing
+ * enough grams (and of a close enough length) are compared by edit 
+ * distance.</p>
+ *
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+final class FuzzyTermIndex {
+
+	private static final char PAD = '\u0000';
+
+	private final String field;
+	private final String[] terms;
+	private final Map<String, int[]> grams;
+
+	private FuzzyTermIndex(String field, String[] terms, Map<String, int[]> grams) {
+		this.field = field;
+		this.terms = terms;
+		this.grams = grams;
+	}
+
+	/**
+	 * Build the index for one field of an IndexReader.
+	 * 
+	 * @param reader the reader
+	 * @param field the field
+	 * @return the new index
+	 * @throws IOException if an IO error occurs
+	 */
+	static FuzzyTermIndex build(IndexReader reader, String field) throws IOException {
+		List<String> termList = new ArrayList<String>();
+		Map<String, IntList> postings = new HashMap<String, IntList>();
+		TermEnum termEnum = reader.terms(new Term(field, ""));
+		try {
+			do {
+				Term t = termEnum.term();
+				if ( t == null || !field.equals(t.field()) ) {
+					break;
+				}
+				String text = t.text();
+				int ord = termList.size();
+				termList.add(text);
+				for ( String gram : grams(text) ) {
+					IntList list = postings.get(gram);
+					if ( list == null ) {
+						list = new IntList();
+						postings.put(gram, list);
+					}
+					list.add(ord);
+				}
+			} while ( termEnum.next() );
+		} finally {
+			termEnum.close();
+		}
+		Map<String, int[]> gramMap = new HashMap<String, int[]>(postings.size());
+		for ( Map.Entry<String, IntList> me : postings.entrySet() ) {
+			gramMap.put(me.getKey(), me.getValue().toArray());
+		}
+		return new FuzzyTermIndex(field, termList.toArray(new String[termList.size()]), 
+				gramMap);
+	}
+
+	/**
+	 * Find the terms similar to a term, using the same similarity measure as 
+	 * Lucene's FuzzyQuery.
+	 * 
+	 * @param text the term text
+	 * @param minSimilarity the minimum similarity, between 0 and 1
+	 * @param prefixLength the length of the prefix that must match exactly
+	 * @param collector the collector to pass the similar terms to
+	 */
+	void findSimilar(String text, float minSimilarity, int prefixLength, 
+			SimilarTermCollector collector) {
+		final String prefix = text.substring(0, Math.min(prefixLength, text.length()));
+		final String suffix = text.substring(prefix.length());
+		
+		// the most edits any match can have, from the similarity formula
+		final int maxEdits = (int)((1.0f - minSimilarity) 
+				* (prefix.length() + suffix.length()));
+		final int minShared = text.length() + 1 - 2 * maxEdits;
+		
+		if ( minShared < 1 ) {
+			// grams can't narrow this down, so compare all terms
+			for ( int i = 0; i < terms.length; i++ ) {
+				score(i, prefix, suffix, minSimilarity, maxEdits, collector);
+			}
+			return;
+		}
+		
+		int[] shared = new int[terms.length];
+		List<String> queryGrams = grams(text);
+		for ( String gram : queryGrams ) {
+			int[] ords = grams.get(gram);
+			if ( ords == null ) {
+				continue;
+			}
+			for ( int ord : ords ) {
+				if ( ++shared[ord] == minShared ) {
+					score(ord, prefix, suffix, minSimilarity, maxEdits, collector);
+				}
+			}
+		}
+	}
+	
+	private void score(int ord, String prefix, String suffix, float minSimilarity,
+			int maxEdits, SimilarTermCollector collector) {
+		String term = terms[ord];
+		if ( !term.startsWith(prefix) 
+				|| Math.abs(term.length() - prefix.length() - suffix.length()) > maxEdits ) {
+			return;
+		}
+		String target = term.substring(prefix.length());
+		int distance = editDistance(suffix, target, maxEdits);
+		if ( distance > maxEdits ) {
+			return;
+		}
+		float similarity = 1.0f - ((float)distance 
+				/ (float)(prefix.length() + Math.min(suffix.length(), target.length())));
+		if ( similarity > minSimilarity ) {
+			collector.collect(new Term(field, term), similarity);
+		}
+	}
+
+	/**
+	 * Compute the Levenshtein distance between two strings, giving up once
+	 * it is known to be more than a limit.
+	 * 
+	 * @param a the first string
+	 * @param b the second string
+	 * @param limit the limit
+	 * @return the distance, or <code>limit + 1</code> if more than limit
+	 */
+	static int editDistance(String a, String b, int limit) {
+		int n = a.length();
+		int m = b.length();
+		if ( Math.abs(n - m) > limit ) {
+			return limit + 1;
+		}
+		int[] prev = new int[m + 1];
+		int[] curr = new int[m + 1];
+		for ( int j = 0; j <= m; j++ ) {
+			prev[j] = j;
+		}
+		for ( int i = 1; i <= n; i++ ) {
+			curr[0] = i;
+			int rowMin = curr[0];
+			char ca = a.charAt(i - 1);
+			for ( int j = 1; j <= m; j++ ) {
+				int cost = (ca == b.charAt(j - 1) ? 0 : 1);
+				curr[j] = Math.min(Math.min(curr[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+				if ( curr[j] < rowMin ) {
+					rowMin = curr[j];
+				}
+			}
+			if ( rowMin > limit ) {
+				return limit + 1;
+			}
+			int[] tmp = prev;
+			prev = curr;
+			curr = tmp;
+		}
+		return prev[m];
+	}
+	
+	private static List<String> grams(String text) {
+		List<String> result = new ArrayList<String>(text.length() + 1);
+		char last = PAD;
+		for ( int i = 0; i < text.length(); i++ ) {
+			char c = text.charAt(i);
+			result.add(new String(new char[] {last, c}));
+			last = c;
+		}
+		result.add(new String(new char[] {last, PAD}));
+		return result;
+	}
+
+	/**
+	 * @return the number of terms in the index
+	 */
+	int size() {
+		return terms.length;
+	}
+
+	@Override
+	public String toString() {
+		return "FuzzyTermIndex{" +field +": " +terms.length +" terms, " 
+			+grams.size() +" grams}";
+	}
+
+	/**
+	 * Callback for similar terms.
+	 */
+	interface SimilarTermCollector {
+		
+		/**
+		 * Collect a similar term.
+		 * @param term the term
+		 * @param similarity the similarity
+		 */
+		void collect(Term term, float similarity);
+	}
+	
+	/**
+	 * The current FuzzyTermIndex for a field.
+	 * 
+	 * <p>The index is replaced only once a new one has been built, so 
+	 * queries keep using the previous index (possibly missing the newest 
+	 * terms) while an IndexReader's index is being built.</p>
+	 */
+	static final class Cache {
+		private final String field;
+		private long version = -1;
+		private volatile FuzzyTermIndex index = null;
+		
+		/**
+		 * Construct for a field.
+		 * @param field the field
+		 */
+		Cache(String field) {
+			this.field = field;
+		}
+		
+		/**
+		 * Get the current index.
+		 * @return the index, or <em>null</em> if none built yet
+		 */
+		FuzzyTermIndex get() {
+			return index;
+		}
+		
+		/**
+		 * Build a new index from a reader, unless already built from it.
+		 * @param indexReader the reader
+		 * @return the index
+		 * @throws IOException if an IO error occurs
+		 */
+		synchronized FuzzyTermIndex update(IndexReader indexReader) throws IOException {
+			if ( indexReader.getVersion() != version || index == null ) {
+				index = build(indexReader, field);
+				version = indexReader.getVersion();
+			}
+			return index;
+		}
+		
+		@Override
+		public String toString() {
+			FuzzyTermIndex i = index;
+			return (i == null ? "FuzzyTermIndex{" +field +": not built}" : i.toString());
+		}
+	}
+
+	private static final class IntList {
+		private int[] values = new int[4];
+		private int size = 0;
+		
+		private void add(int value) {
+			if ( size == values.length ) {
+				int[] tmp = new int[size * 2];
+				System.arraycopy(values, 0, tmp, 0, size);
+				values = tmp;
+			}
+			values[size++] = value;
+		}
+		
+		private int[] toArray() {
+			int[] result = new int[size];
+			System.arraycopy(values, 0, result, 0, size);
+			return result;
+		}
+	}
+	
+}
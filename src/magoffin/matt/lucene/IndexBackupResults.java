@@ -0,0 +1,163 @@
+/* ===================================================================
+ * IndexBackupResults.java
+ *
+ * Created Oct 19, 2026 2:14:36 PM
+ *
+ * Copyright (c) 2026 Matt Magoffin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.lucene;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * The results of backing up an index with 
+ * {@link LuceneSearchService#backupIndex(String, File)}.
+ *
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class IndexBackupResults {
+
+	private final String type;
+	private final File backupDirectory;
+	private final String segmentsFileName;
+	private final long generation;
+	private final Set<String> fileNames;
+	private final int filesCopied;
+	private final int filesSkipped;
+	private final int filesDeleted;
+	private final long bytesCopied;
+	private final long timeMs;
+
+	/**
+	 * Construct with values.
+	 * 
+	 * @param type the index type
+	 * @param backupDirectory the backup directory
+	 * @param segmentsFileName the segments file name of the backed up commit
+	 * @param generation the generation of the backed up commit
+	 * @param fileNames the names of all files in the backed up commit
+	 * @param filesCopied the number of files copied
+	 * @param filesSkipped the number of files already in the backup
+	 * @param filesDeleted the number of obsolete files deleted from the backup
+	 * @param bytesCopied the number of bytes copied
+	 * @param timeMs the time taken, in milliseconds
+	 */
+	public IndexBackupResults(String type, File backupDirectory, 
+			String segmentsFileName, long generation, Set<String> fileNames, 
+			int filesCopied, 
+			int filesSkipped, int filesDeleted, long bytesCopied, long timeMs) {
+		this.type = type;
+		this.backupDirectory = backupDirectory;
+		this.segmentsFileName = segmentsFileName;
+		this.generation = generation;
+		this.fileNames = Collections.unmodifiableSet(fileNames);
+		this.filesCopied = filesCopied;
+		this.filesSkipped = filesSkipped;
+		this.filesDeleted = filesDeleted;
+		this.bytesCopied = bytesCopied;
+		this.timeMs = timeMs;
+	}
+
+	/**
+	 * @return the index type
+	 */
+	public String getType() {
+		return type;
+	}
+
+	/**
+	 * @return the backup directory
+	 */
+	public File getBackupDirectory() {
+		return backupDirectory;
+	}
+
+	/**
+	 * @return the segments file name of the backed up commit
+	 */
+	public String getSegmentsFileName() {
+		return segmentsFileName;
+	}
+
+	/**
+	 * @return the generation of the backed up commit
+	 */
+	public long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * @return the names of all files in the backed up commit
+	 */
+	public Set<String> getFileNames() {
+		return fileNames;
+	}
+
+	/**
+	 * @return the number of files copied
+	 */
+	public int getFilesCopied() {
+		return filesCopied;
+	}
+
+	/**
+	 * @return the number of files skipped because they were already in 
+	 * the backup from a previous backup
+	 */
+	public int getFilesSkipped() {
+		return filesSkipped;
+	}
+
+	/**
+	 * @return the number of files deleted from the backup because they are
+	 * no longer part of the index
+	 */
+	public int getFilesDeleted() {
+		return filesDeleted;
+	}
+
+	/**
+	 * @return the number of bytes copied
+	 */
+	public long getBytesCopied() {
+		return bytesCopied;
+	}
+
+	/**
+	 * @return the time taken, in milliseconds
+	 */
+	public long getTimeMs() {
+		return timeMs;
+	}
+
+	@Override
+	public String toString() {
+		return "IndexBackupResults{" +type +": " +segmentsFileName +" to " 
+			+backupDirectory +", " +filesCopied +" copied (" +bytesCopied 
+			+" bytes), " +filesSkipped +" skipped, " +filesDeleted +" deleted, "
+			+timeMs +"ms}";
+	}
+
+}
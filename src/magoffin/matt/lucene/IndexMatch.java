@@ -0,0 +1,80 @@
+/* ===================================================================
+ * IndexMatch.java
+ *
+ * Created Oct 19, 2026 3:31:08 PM
+ *
+ * Copyright (c) 2026 Matt Magoffin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.lucene;
+
+/**
+ * A search result match from one of several searched indexes.
+ *
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class IndexMatch {
+
+	private final String index;
+	private final float score;
+	private final Object match;
+
+	/**
+	 * Construct with values.
+	 * 
+	 * @param index the index the match came from
+	 * @param score the match score
+	 * @param match the match object, as built by the index's plugin
+	 */
+	public IndexMatch(String index, float score, Object match) {
+		this.index = index;
+		this.score = score;
+		this.match = match;
+	}
+
+	/**
+	 * @return the index the match came from
+	 */
+	public String getIndex() {
+		return index;
+	}
+
+	/**
+	 * @return the match score
+	 */
+	public float getScore() {
+		return score;
+	}
+
+	/**
+	 * @return the match object, as built by the index's plugin
+	 */
+	public Object getMatch() {
+		return match;
+	}
+
+	@Override
+	public String toString() {
+		return "IndexMatch{" +index +": " +score +", " +match +"}";
+	}
+
+}
@@ -0,0 +1,77 @@
+/* ===================================================================
+ * IndexSearchCriteria.java
+ *
+ * Created Oct 19, 2026 1:14:22 PM
+ *
+ * Copyright (c) 2026 Matt Magoffin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.lucene;
+
+import java.util.List;
+import magoffin.matt.dao.SortDescriptor;
+
+/**
+ * Search criteria with sorting and facet counting support.
+ * 
+ * <p>Sorting and facet counting are done from the Lucene field cache, 
+ * so they require the fields to be indexed as single, un-tokenized 
+ * terms per document. Values are compared as strings.</p>
+ *
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public interface IndexSearchCriteria extends SearchCriteria {
+
+	/** Sort key to sort by relevance score. */
+	String SORT_BY_SCORE = "_score";
+
+	/**
+	 * Get the sort order of the results, or <em>null</em> to sort by 
+	 * relevance.
+	 * 
+	 * <p>The sort keys are index field names, or {@link #SORT_BY_SCORE}.</p>
+	 * 
+	 * @return the sort descriptors
+	 */
+	List<SortDescriptor> getSortDescriptors();
+	
+	/**
+	 * Get the index field names to count values for, over all matches.
+	 * @return the facet field names, or <em>null</em> for no facet counts
+	 */
+	List<String> getFacetFields();
+	
+	/**
+	 * Get the maximum number of values to return for each facet field, 
+	 * or unlimited values if less than 1.
+	 * @return the max facet values
+	 */
+	int getMaxFacetValues();
+	
+	/**
+	 * Get the names of the filters to restrict the results with, as 
+	 * registered with {@link LuceneService#registerFilter(String, String, org.apache.lucene.search.Query)}.
+	 * @return the filter names, or <em>null</em> for no filters
+	 */
+	List<String> getFilterNames();
+	
+}
@@ -0,0 +1,68 @@
+/* ===================================================================
+ * IndexSearchResults.java
+ *
+ * Created Oct 19, 2026 1:16:48 PM
+ *
+ * Copyright (c) 2026 Matt Magoffin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.lucene;
+
+import java.util.Map;
+
+/**
+ * Search results with facet counts.
+ *
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public interface IndexSearchResults extends SearchResults {
+
+	/**
+	 * Get the facet counts requested by {@link IndexSearchCriteria#getFacetFields()}.
+	 * 
+	 * <p>The returned map is keyed by field name. Each value maps the field's
+	 * values to the number of matches with that value, ordered from highest 
+	 * count to lowest.</p>
+	 * 
+	 * @return the facet counts, never <em>null</em>
+	 */
+	Map<String, Map<String, Integer>> getFacetCounts();
+	
+	/**
+	 * Get a cursor for the page of results following these results.
+	 * 
+	 * @return the cursor, or <em>null</em> if these results were not 
+	 * fetched with a cursor, are partial results, or there are no more 
+	 * results
+	 */
+	SearchCursor getNextCursor();
+	
+	/**
+	 * Return <em>true</em> if the search was stopped early by a time limit
+	 * or cancellation (see {@link QueryControl}), so these results only 
+	 * include some of the matches.
+	 * 
+	 * @return boolean
+	 */
+	boolean isPartialResults();
+	
+}
@@ -0,0 +1,235 @@
+/* ===================================================================
+ * IndexStatistics.java
+ *
+ * Created Oct 19, 2026 5:58:52 PM
+ *
+ * Copyright (c) 2026 Matt Magoffin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.lucene;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Statistics on the shape of an index, from 
+ * {@link LuceneSearchService#getIndexStatistics(String)}.
+ * 
+ * <p>The document, segment and term values are for the latest index 
+ * commit. The flush values are counted by the service since it was 
+ * started.</p>
+ *
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class IndexStatistics {
+
+	private final String type;
+	private final int numDocs;
+	private final int maxDoc;
+	private final boolean optimized;
+	private final Map<String, Long> segmentSizes;
+	private final long sizeInBytes;
+	private final Map<String, Integer> fieldTermCounts;
+	private final long commitGeneration;
+	private final long commitVersion;
+	private final long commitTimestamp;
+	private final long flushCount;
+	private final long flushedDocCount;
+	private final long flushedBytes;
+	private final long timeMs;
+
+	/**
+	 * Construct with values.
+	 * 
+	 * @param type the index type
+	 * @param numDocs the number of documents, not counting deleted documents
+	 * @param maxDoc the number of documents, counting deleted documents
+	 * @param optimized <em>true</em> if the index is optimized
+	 * @param segmentSizes the size in bytes of each segment, keyed by segment name
+	 * @param sizeInBytes the size in bytes of all files in the index commit
+	 * @param fieldTermCounts the number of unique terms in each indexed field
+	 * @param commitGeneration the generation of the index commit
+	 * @param commitVersion the version of the index commit
+	 * @param commitTimestamp the time the index commit was written
+	 * @param flushCount the number of index writer flushes
+	 * @param flushedDocCount the number of documents written by those flushes
+	 * @param flushedBytes the RAM buffer bytes written by those flushes
+	 * @param timeMs the time taken to gather the statistics, in milliseconds
+	 */
+	public IndexStatistics(String type, int numDocs, int maxDoc, boolean optimized,
+			Map<String, Long> segmentSizes, long sizeInBytes, 
+			Map<String, Integer> fieldTermCounts, long commitGeneration, 
+			long commitVersion, long commitTimestamp, long flushCount, 
+			long flushedDocCount, long flushedBytes, long timeMs) {
+		this.type = type;
+		this.numDocs = numDocs;
+		this.maxDoc = maxDoc;
+		this.optimized = optimized;
+		this.segmentSizes = Collections.unmodifiableMap(segmentSizes);
+		this.sizeInBytes = sizeInBytes;
+		this.fieldTermCounts = Collections.unmodifiableMap(fieldTermCounts);
+		this.commitGeneration = commitGeneration;
+		this.commitVersion = commitVersion;
+		this.commitTimestamp = commitTimestamp;
+		this.flushCount = flushCount;
+		this.flushedDocCount = flushedDocCount;
+		this.flushedBytes = flushedBytes;
+		this.timeMs = timeMs;
+	}
+
+	/**
+	 * @return the index type
+	 */
+	public String getType() {
+		return type;
+	}
+
+	/**
+	 * @return the number of documents, not counting deleted documents
+	 */
+	public int getNumDocs() {
+		return numDocs;
+	}
+
+	/**
+	 * @return the number of documents, counting deleted documents not yet
+	 * removed by a merge
+	 */
+	public int getMaxDoc() {
+		return maxDoc;
+	}
+
+	/**
+	 * @return the number of deleted documents not yet removed by a merge
+	 */
+	public int getDeletedDocs() {
+		return maxDoc - numDocs;
+	}
+
+	/**
+	 * @return the fraction of documents that are deleted, between 0 and 1
+	 */
+	public double getDeletedDocRatio() {
+		return (maxDoc < 1 ? 0.0 : (double)(maxDoc - numDocs) / (double)maxDoc);
+	}
+
+	/**
+	 * @return <em>true</em> if the index has a single segment and no deletions
+	 */
+	public boolean isOptimized() {
+		return optimized;
+	}
+
+	/**
+	 * @return the number of segments
+	 */
+	public int getSegmentCount() {
+		return segmentSizes.size();
+	}
+
+	/**
+	 * @return the size in bytes of each segment, keyed by segment name
+	 */
+	public Map<String, Long> getSegmentSizes() {
+		return segmentSizes;
+	}
+
+	/**
+	 * @return the size in bytes of all files in the index commit
+	 */
+	public long getSizeInBytes() {
+		return sizeInBytes;
+	}
+
+	/**
+	 * @return the number of unique terms in each indexed field, keyed by
+	 * field name
+	 */
+	public Map<String, Integer> getFieldTermCounts() {
+		return fieldTermCounts;
+	}
+
+	/**
+	 * @return the generation of the index commit
+	 */
+	public long getCommitGeneration() {
+		return commitGeneration;
+	}
+
+	/**
+	 * @return the version of the index commit
+	 */
+	public long getCommitVersion() {
+		return commitVersion;
+	}
+
+	/**
+	 * @return the time the index commit was written, in milliseconds since
+	 * the epoch
+	 */
+	public long getCommitTimestamp() {
+		return commitTimestamp;
+	}
+
+	/**
+	 * @return the number of index writer flushes
+	 */
+	public long getFlushCount() {
+		return flushCount;
+	}
+
+	/**
+	 * @return the number of documents written by index writer flushes
+	 */
+	public long getFlushedDocCount() {
+		return flushedDocCount;
+	}
+
+	/**
+	 * @return the average number of documents written per index writer flush
+	 */
+	public double getAverageFlushDocs() {
+		return (flushCount < 1 ? 0.0 : (double)flushedDocCount / (double)flushCount);
+	}
+
+	/**
+	 * @return the average RAM buffer size, in bytes, per index writer flush
+	 */
+	public double getAverageFlushBytes() {
+		return (flushCount < 1 ? 0.0 : (double)flushedBytes / (double)flushCount);
+	}
+
+	/**
+	 * @return the time taken to gather the statistics, in milliseconds
+	 */
+	public long getTimeMs() {
+		return timeMs;
+	}
+
+	@Override
+	public String toString() {
+		return "IndexStatistics{" +type +": " +numDocs +" docs, " 
+			+getDeletedDocs() +" deleted, " +segmentSizes.size() +" segments, "
+			+sizeInBytes +" bytes, generation " +commitGeneration +"}";
+	}
+
+}
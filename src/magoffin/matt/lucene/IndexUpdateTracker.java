@@ -26,10 +26,14 @@
 
 package magoffin.matt.lucene;
 
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.apache.log4j.Logger;
 
 /**
@@ -38,41 +42,119 @@ import org.apache.log4j.Logger;
  * <p>This is useful for unit tests that want to delete all 
  * updates after the test runs.</p>
  * 
+ * <p>This class is thread-safe. <code>Long</code> IDs are stored in a 
+ * primitive array per index type, other IDs in a set.</p>
+ * 
  * @author Matt Magoffin (spamsqr@msqr.us)
  * @version $Revision: 1.1 $ $Date: 2007/03/05 05:41:02 $
  */
-public class IndexUpdateTracker implements IndexListener {
+public class IndexUpdateTracker implements BatchIndexListener {
 	
-	private final Map<String, List<Object>> updateMap = new HashMap<String, List<Object>>();
+	private final ConcurrentMap<String, TrackedIds> updateMap 
+		= new ConcurrentHashMap<String, TrackedIds>();
 	
 	private final Logger log = Logger.getLogger(IndexUpdateTracker.class);
+	
+	/**
+	 * The IDs tracked for one index type.
+	 */
+	private static final class TrackedIds {
+		private long[] longIds = new long[16];
+		private int longCount = 0;
+		private Set<Object> otherIds = null;
+		
+		private synchronized void add(Object id) {
+			if ( id instanceof Long ) {
+				if ( longCount == longIds.length ) {
+					longIds = Arrays.copyOf(longIds, longCount * 2);
+				}
+				longIds[longCount++] = (Long)id;
+			} else {
+				if ( otherIds == null ) {
+					otherIds = new LinkedHashSet<Object>();
+				}
+				otherIds.add(id);
+			}
+		}
+		
+		/**
+		 * Remove and return all tracked IDs, without duplicates.
+		 */
+		private synchronized List<Object> drain() {
+			long[] sorted = Arrays.copyOf(longIds, longCount);
+			Arrays.sort(sorted);
+			List<Object> result = new ArrayList<Object>(longCount 
+					+ (otherIds == null ? 0 : otherIds.size()));
+			for ( int i = 0; i < sorted.length; i++ ) {
+				if ( i == 0 || sorted[i] != sorted[i - 1] ) {
+					result.add(Long.valueOf(sorted[i]));
+				}
+			}
+			if ( otherIds != null ) {
+				result.addAll(otherIds);
+			}
+			longIds = new long[16];
+			longCount = 0;
+			otherIds = null;
+			return result;
+		}
+	}
 
 	@Override
 	public void onIndexEvent(IndexEvent event) {
 		if ( IndexEvent.EventType.UPDATE == event.getType() ) {
-			List<Object> typeList = updateMap.get(event.getIndexType());
-			if ( typeList == null ) {
-				typeList = new LinkedList<Object>();
-				updateMap.put(event.getIndexType(), typeList);
+			getTrackedIds(event.getIndexType()).add(event.getSource());
+		}
+	}
+
+	@Override
+	public void onIndexEvents(List<IndexEvent> events) {
+		String lastType = null;
+		TrackedIds ids = null;
+		for ( IndexEvent event : events ) {
+			if ( IndexEvent.EventType.UPDATE != event.getType() ) {
+				continue;
+			}
+			if ( ids == null || !event.getIndexType().equals(lastType) ) {
+				lastType = event.getIndexType();
+				ids = getTrackedIds(lastType);
 			}
-			typeList.add(event.getSource());
+			ids.add(event.getSource());
 		}
 	}
+	
+	private TrackedIds getTrackedIds(String indexType) {
+		TrackedIds ids = updateMap.get(indexType);
+		if ( ids == null ) {
+			ids = new TrackedIds();
+			TrackedIds existing = updateMap.putIfAbsent(indexType, ids);
+			if ( existing != null ) {
+				ids = existing;
+			}
+		}
+		return ids;
+	}
 
 	/**
 	 * Delete all updated objects.
+	 * 
+	 * <p>The objects for each index type are deleted in a single call to
+	 * {@link LuceneService#deleteObjectsById(String, java.util.Collection)}.</p>
+	 * 
 	 * @param lucene the LuceneService to delete from
 	 */
 	public void cleanUp(LuceneService lucene) {
-		for ( String indexType : updateMap.keySet() ) {
-			List<Object> list = updateMap.get(indexType);
-			for ( Object o : list ) {
-				try {
-					lucene.deleteObjectById(indexType, o);
-				} catch ( Exception e ) {
-					if ( log.isDebugEnabled() ) {
-						log.debug("Unable to delete by object ID for ID [" +o +"]");
-					}
+		for ( Map.Entry<String, TrackedIds> me : updateMap.entrySet() ) {
+			List<Object> ids = me.getValue().drain();
+			if ( ids.isEmpty() ) {
+				continue;
+			}
+			try {
+				lucene.deleteObjectsById(me.getKey(), ids);
+			} catch ( Exception e ) {
+				if ( log.isDebugEnabled() ) {
+					log.debug("Unable to delete by object IDs for index [" 
+							+me.getKey() +"]: " +e.getMessage());
 				}
 			}
 		}
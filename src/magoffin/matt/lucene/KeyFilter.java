@@ -29,12 +29,13 @@ import java.io.IOException;
 import org.apache.lucene.analysis.Token;
 import org.apache.lucene.analysis.TokenFilter;
 import org.apache.lucene.analysis.TokenStream;
-import org.apache.lucene.index.Payload;
 
 /**
  * Filter a stream into a single token for use as a single key.
  * 
- * <p>This class is not thread-safe.</p>
+ * <p>This class is not thread-safe. The key is produced by truncating
+ * the term of the token passed to {@link #next(Token)}, so no new 
+ * Token instances are created.</p>
  * 
  * <p>The configurable properties of this class are:</p>
  * 
@@ -75,26 +76,17 @@ public class KeyFilter extends TokenFilter {
 		this.maxLength = maxLength;
 	}
 
-	/* (non-Javadoc)
-	 * @see org.apache.lucene.analysis.TokenStream#next()
-	 */
 	@Override
-	public Token next() throws IOException {
-	    final Token t = new Token();
-	    Token token = next(t);
+	public Token next(Token reusableToken) throws IOException {
+		Token token = input.next(reusableToken);
 		if ( token == null ) {
 			return null;
 		}
-		Payload p = token.getPayload();
-		if ( p != null ) {
-			token.setPayload((Payload)p.clone());
-		}
-		String key = token.term();
-		if ( key.length() > maxLength ) {
-			key = key.substring(0, maxLength);
+		if ( token.termLength() > maxLength ) {
+			token.setTermLength(maxLength);
 		}
-		char[] keyChars = key.toCharArray();
-		return new Token(keyChars, 0, keyChars.length, token.startOffset(), token.startOffset()+keyChars.length);
+		token.setEndOffset(token.startOffset() + token.termLength());
+		return token;
 	}
 
 	/* Injector methods below. */
@@ -85,7 +85,7 @@ public final class KeyTokenizer extends Tokenizer {
 	}
 
 	@Override
-	public Token next() throws IOException {
+	public Token next(Token reusableToken) throws IOException {
 		if ( complete ) {
 			return null;
 		}
@@ -130,8 +130,13 @@ public final class KeyTokenizer extends Tokenizer {
 			}
 		}
 		complete = true;
-		char[] keyChar = key.toCharArray();
-		return new Token(keyChar, 0, keyChar.length, 0, numRead - 1);
+		return reusableToken.reinit(key, 0, numRead - 1);
+	}
+	
+	@Override
+	public void reset(Reader reader) throws IOException {
+		super.reset(reader);
+		complete = false;
 	}
 	
 	/* Injector methods below. */
@@ -0,0 +1,210 @@
+/* ===================================================================
+ * LimitedFuzzyQuery.java
+ *
+ * Created Oct 19, 2026 5:02:44 PM
+ *
+ * Copyright (c) 2026 Matt Magoffin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.lucene;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.FuzzyTermEnum;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.ToStringUtils;
+
+/**
+ * A fuzzy term query that limits how many similar terms it expands to, and
+ * can find similar terms with a {@link FuzzyTermIndex} rather than by
+ * scoring every term in the field.
+ *
+ * <p>Like {@link org.apache.lucene.search.FuzzyQuery} this rewrites to a 
+ * BooleanQuery of the similar terms, each boosted by how far its similarity
+ * is above <code>minSimilarity</code>, but only the <code>maxExpansions</code> most similar terms are kept.</p>
+ *
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+final class LimitedFuzzyQuery extends Query {
+
+	private static final long serialVersionUID = -4237610932553710548L;
+
+	private final Term term;
+	private final float minSimilarity;
+	private final int prefixLength;
+	private final int maxExpansions;
+	private final transient FuzzyTermIndex.Cache termIndex;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param term the term to match
+	 * @param minSimilarity the minimum similarity, between 0 and 1
+	 * @param prefixLength the length of the prefix that must match exactly
+	 * @param maxExpansions the maximum number of similar terms to match, or
+	 * <em>0</em> for {@link BooleanQuery#getMaxClauseCount()}
+	 * @param termIndex the term index to find similar terms with, or 
+	 * <em>null</em> to enumerate the field's terms; the field's terms are 
+	 * also enumerated if the term index has not been built yet
+	 */
+	LimitedFuzzyQuery(Term term, float minSimilarity, int prefixLength, 
+			int maxExpansions, FuzzyTermIndex.Cache termIndex) {
+		if ( minSimilarity >= 1.0f || minSimilarity < 0.0f ) {
+			throw new IllegalArgumentException("minSimilarity must be >= 0 and < 1");
+		}
+		if ( prefixLength < 0 ) {
+			throw new IllegalArgumentException("prefixLength must be >= 0");
+		}
+		this.term = term;
+		this.minSimilarity = minSimilarity;
+		this.prefixLength = prefixLength;
+		this.maxExpansions = maxExpansions;
+		this.termIndex = termIndex;
+	}
+
+	@Override
+	public Query rewrite(IndexReader reader) throws IOException {
+		int max = maxExpansions > 0 
+			? Math.min(maxExpansions, BooleanQuery.getMaxClauseCount())
+			: BooleanQuery.getMaxClauseCount();
+		TopTermCollector collector = new TopTermCollector(max);
+		FuzzyTermIndex index = (termIndex == null ? null : termIndex.get());
+		if ( index != null ) {
+			index.findSimilar(term.text(), minSimilarity, prefixLength, collector);
+		} else {
+			FuzzyTermEnum enumerator = new FuzzyTermEnum(reader, term, 
+					minSimilarity, prefixLength);
+			try {
+				do {
+					Term t = enumerator.term();
+					if ( t != null ) {
+						// difference() is the similarity scaled to the range above minSimilarity
+						collector.collect(t, minSimilarity 
+								+ enumerator.difference() * (1.0f - minSimilarity));
+					}
+				} while ( enumerator.next() );
+			} finally {
+				enumerator.close();
+			}
+		}
+		BooleanQuery query = new BooleanQuery(true);
+		for ( ScoredTerm st : collector.terms() ) {
+			TermQuery tq = new TermQuery(st.term);
+			// boost the same as FuzzyQuery does
+			tq.setBoost(getBoost() * (st.score - minSimilarity) / (1.0f - minSimilarity));
+			query.add(tq, Occur.SHOULD);
+		}
+		return query;
+	}
+
+	@Override
+	public String toString(String field) {
+		StringBuilder buf = new StringBuilder();
+		if ( !term.field().equals(field) ) {
+			buf.append(term.field()).append(':');
+		}
+		buf.append(term.text()).append('~').append(Float.toString(minSimilarity));
+		buf.append(ToStringUtils.boost(getBoost()));
+		return buf.toString();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if ( this == o ) {
+			return true;
+		}
+		if ( !(o instanceof LimitedFuzzyQuery) ) {
+			return false;
+		}
+		LimitedFuzzyQuery other = (LimitedFuzzyQuery)o;
+		return getBoost() == other.getBoost() && term.equals(other.term)
+			&& minSimilarity == other.minSimilarity 
+			&& prefixLength == other.prefixLength
+			&& maxExpansions == other.maxExpansions;
+	}
+
+	@Override
+	public int hashCode() {
+		int result = term.hashCode();
+		result = 31 * result + Float.floatToIntBits(getBoost());
+		result = 31 * result + Float.floatToIntBits(minSimilarity);
+		result = 31 * result + prefixLength;
+		result = 31 * result + maxExpansions;
+		return result;
+	}
+
+	private static final class ScoredTerm implements Comparable<ScoredTerm> {
+		private final Term term;
+		private final float score;
+		
+		private ScoredTerm(Term term, float score) {
+			this.term = term;
+			this.score = score;
+		}
+
+		@Override
+		public int compareTo(ScoredTerm o) {
+			// lowest score first, then highest term, so the head is the worst
+			if ( score != o.score ) {
+				return score < o.score ? -1 : 1;
+			}
+			return o.term.compareTo(term);
+		}
+	}
+
+	private static final class TopTermCollector 
+	implements FuzzyTermIndex.SimilarTermCollector {
+		private final int max;
+		private final PriorityQueue<ScoredTerm> queue;
+		
+		private TopTermCollector(int max) {
+			this.max = max;
+			this.queue = new PriorityQueue<ScoredTerm>(Math.min(max, 64) + 1);
+		}
+
+		@Override
+		public void collect(Term t, float similarity) {
+			ScoredTerm st = new ScoredTerm(t, similarity);
+			if ( queue.size() < max ) {
+				queue.add(st);
+			} else if ( queue.peek().compareTo(st) < 0 ) {
+				queue.poll();
+				queue.add(st);
+			}
+		}
+		
+		private List<ScoredTerm> terms() {
+			List<ScoredTerm> result = new ArrayList<ScoredTerm>(queue);
+			Collections.sort(result, Collections.reverseOrder());
+			return result;
+		}
+	}
+
+}
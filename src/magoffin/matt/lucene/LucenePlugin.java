@@ -57,6 +57,104 @@ public interface LucenePlugin {
 		
 	}
 	
+	/**
+	 * Optional extended index configuration API for plugins.
+	 * 
+	 * <p>The {@link LuceneIndexConfig} returned by 
+	 * {@link LucenePlugin#init(LuceneService, Set)} may also implement this
+	 * API to tune the index. Indexes whose configuration does not implement
+	 * it use the Lucene defaults for these settings, with no warm-up, fuzzy 
+	 * term indexes or suggestion indexes.</p>
+	 */
+	public interface ExtendedIndexConfig extends LuceneIndexConfig {
+		
+		/**
+		 * Get the amount of RAM, in megabytes, to buffer added documents in
+		 * before flushing them to the index.
+		 * 
+		 * <p>If greater than 0 this is used in addition to 
+		 * {@link #getMinMergeDocs()}, and the buffer is flushed when either 
+		 * limit is reached. Set {@link #getMinMergeDocs()} to 
+		 * {@link IndexWriter#DISABLE_AUTO_FLUSH} to flush by RAM usage only.</p>
+		 * 
+		 * @return RAM buffer size, or 0 to use the Lucene default
+		 */
+		double getRamBufferSizeMB();
+		
+		/**
+		 * Get the largest segment size, in megabytes, to merge with other 
+		 * segments during normal indexing.
+		 * @return max merge size, or 0 for no limit
+		 */
+		double getMaxMergeMB();
+		
+		/**
+		 * Return <em>true</em> to use the compound file format, which uses 
+		 * far fewer open files at a small cost in indexing speed.
+		 * @return boolean
+		 */
+		boolean isUseCompoundFile();
+		
+		/**
+		 * Get the interval between indexed terms in the term dictionary.
+		 * 
+		 * <p>Larger values use less memory for open readers, smaller values
+		 * make term lookups faster.</p>
+		 * 
+		 * @return term index interval, or 0 to use the Lucene default
+		 */
+		int getTermIndexInterval();
+		
+		/**
+		 * Get query strings to run against each new IndexSearcher before it
+		 * is used for searches.
+		 * 
+		 * <p>Warming a searcher loads term indexes and norms so that the 
+		 * first searches after startup or an index update do not pay for 
+		 * loading them. The queries are parsed with 
+		 * {@link LuceneService#parseQuery(String, String)}.</p>
+		 * 
+		 * @return the warm-up queries, or an empty list for none
+		 */
+		List<String> getWarmUpQueries();
+		
+		/**
+		 * Get the names of fields to load into the FieldCache for each new
+		 * IndexSearcher before it is used for searches, i.e. fields used for
+		 * sorting or facet counts.
+		 * 
+		 * @return the field names, or an empty list for none
+		 */
+		List<String> getWarmUpSortFields();
+		
+		/**
+		 * Get the names of fields to keep an in-memory term index for, to
+		 * speed up fuzzy queries on those fields.
+		 * 
+		 * <p>Fuzzy queries on other fields must compare the query term to
+		 * every term in the field. The term index is rebuilt in the 
+		 * background after the index is updated (the previous one is used
+		 * until then), and takes memory roughly proportional to the total
+		 * length of the field's terms.</p>
+		 * 
+		 * @return the field names, or an empty list for none
+		 */
+		List<String> getFuzzyTermIndexFields();
+		
+		/**
+		 * Get the names of fields to keep a suggestion index for, for
+		 * {@link LuceneService#suggest(String, String, String, int)}.
+		 * 
+		 * <p>The suggestion index holds every term of the field with its 
+		 * document frequency. It is rebuilt in the background after the index
+		 * is updated, and the previous one is used until then.</p>
+		 * 
+		 * @return the field names, or an empty list for none
+		 */
+		List<String> getSuggestFields();
+		
+	}
+	
 	/**
 	 * Initialize the plugin.
 	 * @param luceneService the host LuceneService
@@ -51,5 +51,23 @@ public interface LuceneSearchResults {
 	 * @return total number of matches
 	 */
 	int getTotalMatches();
+	
+	/**
+	 * Get a cursor for the page of results following these results.
+	 * 
+	 * @return the cursor, or <em>null</em> if these results were not 
+	 * fetched with a cursor, are partial results, or there are no more 
+	 * results
+	 */
+	SearchCursor getNextCursor();
+	
+	/**
+	 * Return <em>true</em> if the search was stopped early by a time limit
+	 * or cancellation (see {@link QueryControl}), so these results only 
+	 * include some of the matches.
+	 * 
+	 * @return boolean
+	 */
+	boolean isPartialResults();
 
 }
@@ -25,38 +25,53 @@
 package magoffin.matt.lucene;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.Serializable;
 import java.io.StringReader;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
 import java.util.TimeZone;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import magoffin.matt.dao.SortDescriptor;
 import magoffin.matt.lucene.IndexEvent.EventType;
 import magoffin.matt.util.BaseQueueThread;
 import magoffin.matt.util.FastThreadSafeDateFormat;
@@ -65,28 +80,45 @@ import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.log4j.Logger;
+import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.Token;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.index.CheckIndex;
+import org.apache.lucene.index.IndexCommit;
+import org.apache.lucene.index.IndexFileNameFilter;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexReader.FieldOption;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriter.MaxFieldLength;
+import org.apache.lucene.index.KeepOnlyLastCommitDeletionPolicy;
+import org.apache.lucene.index.LogByteSizeMergePolicy;
 import org.apache.lucene.index.Payload;
+import org.apache.lucene.index.SnapshotDeletionPolicy;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.TermEnum;
 import org.apache.lucene.queryParser.ParseException;
 import org.apache.lucene.queryParser.QueryParser;
 import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.FieldCache;
+import org.apache.lucene.search.Filter;
 import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.HitCollector;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TimeLimitedCollector;
 import org.apache.lucene.search.TopDocCollector;
+import org.apache.lucene.search.TopFieldDocCollector;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.OpenBitSet;
 import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.util.StringUtils;
 
@@ -132,19 +164,52 @@ import org.springframework.util.StringUtils;
  * <dt>updateBufferFlushMs</dt>
  * <dd>The number of milliseconds between flushing the index queue buffers. Only
  * useful if the <code>updateBufferSize</code> is greater than 1. Defaults to
- * <code>0</code> (which disables the periodic flushing).</dd>
+ * <code>0</code> (which disables the periodic flushing). Each index's buffer
+ * is flushed on its own schedule, with the first flushes spread out over 
+ * this interval so the indexes do not all flush at once.</dd>
+ * 
+ * <dt>updateBufferFlushMinMs</dt>
+ * <dd>If greater than <code>0</code> and less than 
+ * <code>updateBufferFlushMs</code>, the flush interval of an index is 
+ * halved (down to this value) each time at least half of 
+ * <code>updateBufferSize</code> updates are found waiting, so busy indexes
+ * are flushed in smaller, more frequent batches. Defaults to 
+ * <code>0</code>.</dd>
+ * 
+ * <dt>updateBufferFlushMaxMs</dt>
+ * <dd>If greater than <code>updateBufferFlushMs</code>, the flush interval
+ * of an index is doubled (up to this value) each time no updates are found
+ * waiting, so idle indexes are checked less often. Defaults to 
+ * <code>0</code>.</dd>
+ * 
+ * <dt>schedulerThreadCount</dt>
+ * <dd>The number of threads for running periodic tasks: index queue 
+ * flushes, closing discarded IndexReaders, starting term index rebuilds, 
+ * and replication. Each task schedules its next run when it finishes, so a 
+ * slow run delays only that task. The delay between when each task was 
+ * due and when it actually ran is shown in {@link #getStatusDescription()}.
+ * Defaults to {@link #DEFAULT_SCHEDULER_THREAD_COUNT}.</dd>
  * 
  * <dt>plugins</dt>
  * <dd>The list of {@link magoffin.matt.lucene.LucenePlugin} instances to use.</dd>
  * 
  * <dt>batchMinMergeDocs</dt>
  * <dd>The Lucene {@link IndexWriter#setMaxBufferedDocs(int)} value to use while
- * performing batch index operations. Defaults to <b>500</b>.</dd>
+ * performing batch index operations, if <code>batchRamBufferSizeMB</code> is
+ * not positive. Also the number of UPDATE events published together after 
+ * a bulk index. Defaults to <b>500</b>.</dd>
  * 
  * <dt>batchMergeFactor</dt>
  * <dd>The Lucene {@link IndexWriter#setMergeFactor(int)} value to use while
  * performing batch index operations. Defaults to <b>50</b>.</dd>
  * 
+ * <dt>batchRamBufferSizeMB</dt>
+ * <dd>The Lucene {@link IndexWriter#setRAMBufferSizeMB(double)} value to use 
+ * while performing batch index operations. When positive, batch writers 
+ * flush only when this much RAM is used, whatever the number of buffered 
+ * documents; otherwise they flush every <code>batchMinMergeDocs</code> 
+ * documents. Defaults to <b>64</b>.</dd>
+ * 
  * <dt>discardedIndexReaderMinCloseTime</dt>
  * <dd>The minimum amount of milliseconds to hold on to discarded IndexReader
  * instances before calling the
@@ -155,6 +220,119 @@ import org.springframework.util.StringUtils;
  * <dd>The number of milliseconds between examining the discarded IndexReader
  * buffer for IndexReader instances to close. Defaults to 180,000 (3 minutes).</dd>
  * 
+ * <dt>indexEventQueueSize</dt>
+ * <dd>The maximum number of event batches to queue for each listener added
+ * with {@link #addIndexEventListener(IndexListener, boolean)} in asynchronous
+ * mode. When a listener's queue is full further events for that listener are
+ * dropped. Defaults to {@link AsyncIndexListener#DEFAULT_QUEUE_SIZE}.</dd>
+ * 
+ * <dt>indexEventShutdownTimeoutMs</dt>
+ * <dd>The maximum number of milliseconds {@link #finish()} waits, in total,
+ * for asynchronous listeners to receive the events still queued for them.
+ * Events not delivered by then are dropped and their number logged. 
+ * Defaults to {@link #DEFAULT_INDEX_EVENT_SHUTDOWN_TIMEOUT_MS}.</dd>
+ * 
+ * <dt>searchMatchCacheSize</dt>
+ * <dd>The maximum number of objects built by {@link LucenePlugin#build(Document)}
+ * to cache for each index, so that popular search results are not loaded 
+ * and built again. The cache is discarded whenever the index's IndexSearcher
+ * is replaced. Cached objects are shared between callers, so they must be 
+ * treated as read-only. Defaults to <code>0</code> (which disables the 
+ * cache).</dd>
+ * 
+ * <dt>trieDatePrecisionStep</dt>
+ * <dd>The {@link TrieUtils} precision step used by {@link #addDateField(Document, String, Date)}
+ * and {@link #dateRangeQuery(String, Date, Date)}. Smaller values make range
+ * queries faster at the cost of more terms per indexed date. Changing this
+ * requires a reindex. Defaults to {@link TrieUtils#DEFAULT_PRECISION_STEP}.</dd>
+ * 
+ * <dt>defaultQueryTimeoutMs</dt>
+ * <dd>The time budget, in milliseconds, for searches not given a 
+ * {@link QueryControl}. Searches that run out of time return the matches
+ * found so far, flagged as partial results. Only applies to searches whose
+ * results can be flagged as partial, so not to the 
+ * <code>doIndexQueryOp</code> methods without a <code>QueryControl</code>
+ * argument. Defaults to <code>0</code>, which means no limit.</dd>
+ * 
+ * <dt>fuzzyMinSimilarity</dt>
+ * <dd>The minimum similarity, between 0 and 1, of the terms matched by
+ * {@link #addTokenizedFuzzyQuery(BooleanQuery, String, String, String)}.
+ * Defaults to {@link FuzzyQuery#defaultMinSimilarity}.</dd>
+ * 
+ * <dt>fuzzyPrefixLength</dt>
+ * <dd>The number of leading characters that must match exactly for 
+ * {@link #addTokenizedFuzzyQuery(BooleanQuery, String, String, String)}.
+ * Only terms sharing the prefix are compared, so even a small prefix 
+ * greatly reduces the number of terms examined on fields without a
+ * fuzzy term index (see {@link LucenePlugin.ExtendedIndexConfig#getFuzzyTermIndexFields()}).
+ * Defaults to {@link FuzzyQuery#defaultPrefixLength}.</dd>
+ * 
+ * <dt>termIndexRebuildMs</dt>
+ * <dd>The number of milliseconds between checks for an updated index whose
+ * fuzzy term indexes (see {@link LucenePlugin.ExtendedIndexConfig#getFuzzyTermIndexFields()})
+ * or suggestion indexes (see {@link LucenePlugin.ExtendedIndexConfig#getSuggestFields()})
+ * need rebuilding. Each is rebuilt from the current IndexSearcher on a 
+ * dedicated background thread, one index at a time, and the previous one 
+ * is used until the rebuild completes, so this also limits how often a frequently updated index
+ * is rebuilt. Defaults to {@link #DEFAULT_TERM_INDEX_REBUILD_MS}.</dd>
+ * 
+ * <dt>fuzzyMaxExpansions</dt>
+ * <dd>The maximum number of similar terms each fuzzy token matches; only the
+ * most similar terms are kept. Defaults to <code>0</code>, which means 
+ * {@link BooleanQuery#getMaxClauseCount()}.</dd>
+ * 
+ * <dt>checkIndexOnStartup</dt>
+ * <dd>If <em>true</em>, check the integrity of each index during 
+ * {@link #initialize()} with Lucene's {@link CheckIndex}. A corrupt index 
+ * has its unreadable segments removed (or is emptied if it can't be read 
+ * at all) so the service can start, and is then rebuilt with a
+ * {@link #reindex(String)} in the background. Checking reads every index 
+ * file, so it can add noticeably to startup time for large indexes. 
+ * Defaults to <em>false</em>.</dd>
+ * 
+ * <dt>verifyThreadCount</dt>
+ * <dd>The number of threads to use for verifying indexes in parallel during
+ * {@link #initialize()}. Defaults to <code>0</code>, which uses one thread
+ * per index, as verifying is mostly IO bound.</dd>
+ * 
+ * <dt>lazyIndexOpening</dt>
+ * <dd>If <em>true</em>, {@link #initialize()} does not set up any index; 
+ * instead each index is set up (its plugin initialized and its index 
+ * verified, created, or replicated as during <code>initialize()</code>)
+ * the first time it is used. This lets the service start quickly when 
+ * there are many indexes, some rarely used. Defaults to 
+ * <em>false</em>.</dd>
+ * 
+ * <dt>lazyIndexPreOpen</dt>
+ * <dd>If <em>true</em> and <code>lazyIndexOpening</code> is <em>true</em>,
+ * open all indexes not yet used on a background thread after 
+ * {@link #initialize()} completes, so most are ready before their first 
+ * use. Defaults to <em>false</em>.</dd>
+ * 
+ * <dt>searchThreadCount</dt>
+ * <dd>The number of threads to use for searching indexes in parallel with
+ * {@link #find(Map, int)}. Defaults to <code>0</code>, which uses one thread
+ * per available processor.</dd>
+ * 
+ * <dt>replicationMode</dt>
+ * <dd>One of {@link ReplicationMode}. A <code>PRIMARY</code> instance
+ * publishes each new index commit point to <code>replicationDirectoryPath</code>,
+ * copying only segment files not already published. <code>REPLICA</code> 
+ * instances ignore all index updates and instead copy new commit points from
+ * <code>replicationDirectoryPath</code>, then reopen their searchers, so 
+ * indexing is done only once for all instances. Defaults to 
+ * <code>NONE</code>.</dd>
+ * 
+ * <dt>replicationDirectoryPath</dt>
+ * <dd>The path, shared by the primary and all replicas, where index commit
+ * points are published. Required if <code>replicationMode</code> is not
+ * <code>NONE</code>.</dd>
+ * 
+ * <dt>replicationIntervalMs</dt>
+ * <dd>The number of milliseconds between publishing (on the primary) or 
+ * checking for (on replicas) new index commit points. Defaults to
+ * {@link #DEFAULT_REPLICATION_INTERVAL_MS}.</dd>
+ * 
  * </dl>
  * 
  * @author Matt Magoffin (spamsqr@msqr.us)
@@ -168,39 +346,95 @@ public class LuceneSearchService implements LuceneService {
 	/** The default value for the <code>batchMergeFactor</code> property. */
 	public static final int DEFAULT_BATCH_MERGE_FACTOR = 50;
 	
+	/** The default value for the <code>batchRamBufferSizeMB</code> property. */
+	public static final double DEFAULT_BATCH_RAM_BUFFER_SIZE_MB = 64.0;
+	
 	/** The default value for the <code>discardedIndexReaderMinCloseTime</code> property. */
 	public static final long DEFAULT_DISCARDED_INDEX_READER_MIN_CLOSE_TIME = 60000;
 	
 	/** The default value for the <code>discardedIndexReaderProcessorMs</code> property. */
 	public static final long DEFAULT_DISCARDED_INDEX_READER_PROCESSOR_MS = 180000;
 	
+	/** The default value for the <code>indexEventShutdownTimeoutMs</code> property. */
+	public static final long DEFAULT_INDEX_EVENT_SHUTDOWN_TIMEOUT_MS = 5000;
+	
+	/** The default value for the <code>schedulerThreadCount</code> property. */
+	public static final int DEFAULT_SCHEDULER_THREAD_COUNT = 2;
+	
+	/** The default value for the <code>termIndexRebuildMs</code> property. */
+	public static final long DEFAULT_TERM_INDEX_REBUILD_MS = 10000;
+	
+	/** The default value for the <code>replicationIntervalMs</code> property. */
+	public static final long DEFAULT_REPLICATION_INTERVAL_MS = 30000;
+	
 	/** Default max number of search results returned. */
 	public static final int DEFAULT_MAX_SEARCH_RESULTS = 100000;
 	
 	private static final Long ZERO = new Long(0);
 	
-	private static final Pattern NON_ALPHANUMERIC = Pattern.compile("\\W");
-	private static final Pattern LUCENE_RANGE = Pattern.compile("^\\[.+ TO .+\\]$");
-	private static final Pattern LUCENE_SPECIAL = 
-		Pattern.compile("(([\\+\\-\\!\\(\\)\\{\\}\\[\\]^\"~*?:\\\\]|&&|\\|\\|))");
-	private static final Pattern LUCENE_ESCAPED_QUOTES_BUG = Pattern.compile("\"");
-	private static final Pattern LUCENE_SPECIAL_WORD = Pattern.compile("(AND|OR|NOT)");
 	private static final String LUCENE_BACKSLASH_BUG = "\\\\)";
 	private static final String LUCENE_BACKSLASH_BUG_FIX = "\\\\ )";
 	private static final int SECONDS_PER_HOUR = 3600;
+	private static final int WARM_UP_QUERY_MAX_RESULTS = 10;
+	private static final long QUERY_WAIT_POLL_MS = 100;
 	
 	private static final boolean SHARED = true;
 	private static final boolean NOT_SHARED = false;
 	
+	/** The settings for indexes without an ExtendedIndexConfig. */
+	private static final LucenePlugin.ExtendedIndexConfig DEFAULT_EXTENDED_CONFIG 
+		= new BasicIndexConfig();
+	
+	private static final Comparator<IndexMatch> INDEX_MATCH_SCORE_COMPARATOR 
+		= new Comparator<IndexMatch>() {
+			@Override
+			public int compare(IndexMatch o1, IndexMatch o2) {
+				return Float.compare(o2.getScore(), o1.getScore());
+			}
+		};
+	
+	/**
+	 * Index replication modes, for sharing one set of indexes between 
+	 * several service instances.
+	 */
+	public enum ReplicationMode {
+		/** No replication, indexes are maintained locally. */
+		NONE,
+		
+		/** 
+		 * Indexes are maintained locally and each new commit point is 
+		 * published to the replication directory.
+		 */
+		PRIMARY,
+		
+		/** 
+		 * Indexes are not updated locally; new commit points are copied from
+		 * the replication directory instead.
+		 */
+		REPLICA;
+	}
+	
 	private static class LuceneSearchResultsImpl implements LuceneSearchResults {
 		private int totalMatches;
 		private List<Map<String, String[]>> results;
+		private SearchCursor nextCursor;
+		private boolean partialResults;
 
 		@Override
 		public List<Map<String, String[]>> getResults() {
 			return results;
 		}
 
+		@Override
+		public boolean isPartialResults() {
+			return partialResults;
+		}
+
+		@Override
+		public SearchCursor getNextCursor() {
+			return nextCursor;
+		}
+
 		@Override
 		public int getTotalMatches() {
 			return totalMatches;
@@ -218,21 +452,47 @@ public class LuceneSearchService implements LuceneService {
 	private int updateBufferSize = 1;
 	private int batchMinMergeDocs = DEFALUT_BATCH_MIN_MERGE_DOCS;
 	private int batchMergeFactor = DEFAULT_BATCH_MERGE_FACTOR;
+	private double batchRamBufferSizeMB = DEFAULT_BATCH_RAM_BUFFER_SIZE_MB;
 	private long updateBufferFlushMs = 0;
+	private long updateBufferFlushMinMs = 0;
+	private long updateBufferFlushMaxMs = 0;
+	private int schedulerThreadCount = DEFAULT_SCHEDULER_THREAD_COUNT;
 	private TimeZone indexTimeZone = TimeZone.getDefault();	
 	private long discardedIndexReaderMinCloseTime = DEFAULT_DISCARDED_INDEX_READER_MIN_CLOSE_TIME;
 	private long discardedIndexReaderProcessorMs = DEFAULT_DISCARDED_INDEX_READER_PROCESSOR_MS;
 	private boolean throwExceptionDuringInitialize = false;
+	private int indexEventQueueSize = AsyncIndexListener.DEFAULT_QUEUE_SIZE;
+	private long indexEventShutdownTimeoutMs = DEFAULT_INDEX_EVENT_SHUTDOWN_TIMEOUT_MS;
+	private int searchMatchCacheSize = 0;
+	private int trieDatePrecisionStep = TrieUtils.DEFAULT_PRECISION_STEP;
+	private ReplicationMode replicationMode = ReplicationMode.NONE;
+	private String replicationDirectoryPath = null;
+	private long replicationIntervalMs = DEFAULT_REPLICATION_INTERVAL_MS;
+	private int searchThreadCount = 0;
+	private boolean checkIndexOnStartup = false;
+	private int verifyThreadCount = 0;
+	private boolean lazyIndexOpening = false;
+	private boolean lazyIndexPreOpen = false;
+	private long defaultQueryTimeoutMs = 0;
+	private float fuzzyMinSimilarity = FuzzyQuery.defaultMinSimilarity;
+	private int fuzzyPrefixLength = FuzzyQuery.defaultPrefixLength;
+	private int fuzzyMaxExpansions = 0;
+	private long termIndexRebuildMs = DEFAULT_TERM_INDEX_REBUILD_MS;
 	
 	private List<LucenePlugin> plugins;
-	private final Set<IndexListener> indexEventListeners = new LinkedHashSet<IndexListener>();
+	private final Set<IndexListener> indexEventListeners = new CopyOnWriteArraySet<IndexListener>();
 	
 	/* The following are internally initialized fields */
 	
 	private IndexQueueThread indexQueue = null;
 	private File indexDirectory = null;
-	private final Map<String, IndexData> indexDataMap = new HashMap<String, IndexData>();
-	private Timer indexQueueFlushTimer = null;
+	private final ConcurrentMap<String, IndexData> indexDataMap 
+		= new ConcurrentHashMap<String, IndexData>();
+	private final ConcurrentMap<String, LazyIndex> lazyIndexes
+		= new ConcurrentHashMap<String, LazyIndex>();
+	private volatile ScheduledExecutorService scheduler = null;
+	private volatile ExecutorService termIndexExecutor = null;
+	private final List<ScheduledTask> scheduledTasks = new ArrayList<ScheduledTask>();
 	
 	private ThreadSafeDateFormat dayDateFormat = new FastThreadSafeDateFormat(
 			INDEX_DATE_FORMAT_DAY_PATTERN, TimeZone.getDefault());
@@ -241,7 +501,8 @@ public class LuceneSearchService implements LuceneService {
 	
 	private final List<DiscardedIndexReader> discardedIndexReaders = 
 		Collections.synchronizedList(new LinkedList<DiscardedIndexReader>());
-	private Timer discardedIndexReaderProcessorTimer = null;
+	private File replicationDirectory = null;
+	private ExecutorService searchExecutor = null;
 	private boolean finished = false;
 
 	private final Logger log = Logger.getLogger(LuceneSearchService.class);
@@ -285,6 +546,19 @@ public class LuceneSearchService implements LuceneService {
 		}
 		indexDirectory = tmpFile;
 		
+		if ( replicationMode != ReplicationMode.NONE ) {
+			if ( replicationDirectoryPath == null ) {
+				if ( throwExceptionDuringInitialize ) {
+					throw new RuntimeException(
+							"Property replicationDirectoryPath not configured");
+				}
+				log.warn("Property replicationDirectoryPath not configured, replication disabled");
+				replicationMode = ReplicationMode.NONE;
+			} else {
+				replicationDirectory = new File(replicationDirectoryPath);
+			}
+		}
+		
 		// add shutdown hook to try to close Lucene indicies properly when shutdown
 		Thread shutdownHook = new Thread() {
 			@Override
@@ -294,9 +568,49 @@ public class LuceneSearchService implements LuceneService {
 		};
 		Runtime.getRuntime().addShutdownHook(shutdownHook);
 		
-		// initialize plug-ins
+		// initialize plug-ins, then verify their indexes in parallel
+		List<IndexData> verifyList = new ArrayList<IndexData>(plugins.size());
+		for ( LucenePlugin plugin : plugins ) {
+			if ( lazyIndexOpening ) {
+				lazyIndexes.put(plugin.getIndexType(), new LazyIndex(plugin));
+				continue;
+			}
+			IndexData data = setupIndex(plugin);
+			if ( data != null ) {
+				verifyList.add(data);
+			}
+		}
+		verifyIndexes(verifyList);
+		
+		if ( replicationMode == ReplicationMode.REPLICA ) {
+			// copy latest index before accepting searches
+			replicateIndexes();
+		}
+		
+		// warm up searchers before accepting searches
 		for ( LucenePlugin plugin : plugins ) {
-			setupAndVerifyIndex(plugin);
+			IndexData data = indexDataMap.get(plugin.getIndexType());
+			if ( data != null ) {
+				refreshIndexSearcher(data);
+			}
+		}
+		
+		// setup shared scheduler for periodic tasks
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+				Math.max(1, schedulerThreadCount), new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger(0);
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "LuceneSearchService-scheduler-" 
+								+count.incrementAndGet());
+						t.setDaemon(true);
+						return t;
+					}
+				});
+		executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		this.scheduler = executor;
+		synchronized ( scheduledTasks ) {
+			scheduledTasks.clear();
 		}
 		
 		indexQueue = new IndexQueueThread();
@@ -307,36 +621,232 @@ public class LuceneSearchService implements LuceneService {
 			t.setDaemon(false);
 			t.start();
 			
-			// setup flush timer if appropriate
+			// setup flush tasks if appropriate, staggered across the interval
 			if ( this.updateBufferFlushMs > 0 && this.updateBufferSize > 1 ) {
-				this.indexQueueFlushTimer = new Timer(true); // make a daemon
-				this.indexQueueFlushTimer.schedule(
-						new IndexQueueFlushTask(),
-						new Date(), // start now
-						this.updateBufferFlushMs);
+				int count = plugins.size();
+				for ( int i = 0; i < count; i++ ) {
+					startScheduledTask(new IndexQueueFlushTask(plugins.get(i).getIndexType()),
+							this.updateBufferFlushMs * (i + 1) / count);
+				}
+			}
+		}
+		
+		// setup discarded reader processor task
+		startScheduledTask(new CloseDiscardedIndexReaderTask(), 0);
+		
+		// setup term index rebuild tasks, which run the rebuilds on their own thread
+		if ( this.termIndexRebuildMs > 0 ) {
+			this.termIndexExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "LuceneSearchService-term-index");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+			for ( LucenePlugin plugin : plugins ) {
+				startScheduledTask(new TermIndexRebuildTask(plugin.getIndexType()), 
+						this.termIndexRebuildMs);
 			}
 		}
 		
-		// setup discarded reader processor thread
-		this.discardedIndexReaderProcessorTimer = new Timer(true);
-		this.discardedIndexReaderProcessorTimer.schedule(
-				new CloseDiscardedIndexReaderTask(),
-				new Date(),
-				this.discardedIndexReaderProcessorMs);
+		// setup multi-index search threads
+		int searchThreads = (this.searchThreadCount > 0 ? this.searchThreadCount 
+				: Runtime.getRuntime().availableProcessors());
+		this.searchExecutor = Executors.newFixedThreadPool(searchThreads, 
+				new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger(0);
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "LuceneSearchService-search-" 
+								+count.incrementAndGet());
+						t.setDaemon(true);
+						return t;
+					}
+				});
+		
+		// setup replication task
+		if ( replicationMode != ReplicationMode.NONE ) {
+			startScheduledTask(new ReplicationTask(), 
+					replicationMode == ReplicationMode.PRIMARY ? 0 : replicationIntervalMs);
+		}
 
 		if ( this.indexTimeZone != null && log.isInfoEnabled() ) {
 			log.info("Index using [" +this.indexTimeZone.getDisplayName() 
 					+"] time zone for all date operations.");
 		}
 		finished = false;
+		
+		// rebuild any indexes found to be corrupt
+		for ( IndexData data : verifyList ) {
+			rebuildIndexIfPending(data);
+		}
+		
+		if ( lazyIndexPreOpen && !lazyIndexes.isEmpty() ) {
+			Thread t = new Thread("LuceneSearchService-pre-open") {
+				@Override
+				public void run() {
+					for ( LucenePlugin plugin : plugins ) {
+						try {
+							openLazyIndex(plugin.getIndexType());
+						} catch ( Exception e ) {
+							log.warn("Unable to pre-open index [" 
+									+plugin.getIndexType() +"]", e);
+						}
+					}
+				}
+			};
+			t.setDaemon(true);
+			t.start();
+		}
+	}
+	
+	/**
+	 * Start a background reindex of an index if it was found to be corrupt
+	 * when verified.
+	 * @param data the index data
+	 */
+	private void rebuildIndexIfPending(final IndexData data) {
+		if ( !data.rebuildPending ) {
+			return;
+		}
+		data.rebuildPending = false;
+		Thread t = new Thread("LuceneSearchService-rebuild-" +data.type) {
+			@Override
+			public void run() {
+				log.info("Rebuilding index [" +data.type +"]");
+				reindex(data.type);
+			}
+		};
+		t.setDaemon(true);
+		t.start();
+	}
+	
+	/**
+	 * Set up an index deferred by <code>lazyIndexOpening</code>, unless it
+	 * has already been set up.
+	 * 
+	 * <p>Other threads using the index wait until it is set up, without 
+	 * holding any lock. The thread setting it up may use it during setup 
+	 * (e.g. from a plugin's <code>reindex()</code> when the index does not
+	 * exist yet). If setup fails the index stays deferred, so the next use
+	 * tries again.</p>
+	 * 
+	 * @param type the index type
+	 */
+	private void openLazyIndex(String type) {
+		LazyIndex lazy = lazyIndexes.get(type);
+		if ( lazy == null ) {
+			return;
+		}
+		synchronized ( lazy ) {
+			while ( true ) {
+				if ( lazyIndexes.get(type) != lazy 
+						|| lazy.openingThread == Thread.currentThread() ) {
+					// already set up by another thread, or being set up by this thread
+					return;
+				}
+				if ( lazy.openingThread == null ) {
+					break;
+				}
+				try {
+					lazy.wait();
+				} catch ( InterruptedException e ) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException("Interrupted waiting for index [" 
+							+type +"] to be set up", e);
+				}
+			}
+			lazy.openingThread = Thread.currentThread();
+		}
+		long start = System.currentTimeMillis();
+		boolean opened = false;
+		try {
+			IndexData data = setupIndex(lazy.plugin);
+			if ( data != null ) {
+				verifyIndex(data);
+				if ( replicationMode == ReplicationMode.REPLICA ) {
+					try {
+						replicateIndex(data);
+					} catch ( IOException e ) {
+						log.warn("Unable to replicate index [" +type +"]: " +e);
+					}
+				}
+				refreshIndexSearcher(data);
+				rebuildIndexIfPending(data);
+				opened = true;
+			}
+		} finally {
+			if ( opened ) {
+				lazyIndexes.remove(type);
+			} else {
+				// discard any partial setup, to start over on the next use
+				indexDataMap.remove(type);
+			}
+			synchronized ( lazy ) {
+				lazy.openingThread = null;
+				lazy.notifyAll();
+			}
+		}
+		if ( !opened ) {
+			log.warn("Unable to open index [" +type +"] on first use, will try again " 
+					+"on next use");
+		} else if ( log.isInfoEnabled() ) {
+			log.info("Opened index [" +type +"] on first use in " 
+					+(System.currentTimeMillis() - start) +"ms");
+		}
+	}
+	
+	/**
+	 * Set up an index deferred by <code>lazyIndexOpening</code> on a new
+	 * thread, and then flush the updates queued for it.
+	 * 
+	 * <p>This is used for updates to an index not yet set up, so the index
+	 * queue does not wait for the setup (which may include a full reindex)
+	 * while updates to other indexes are waiting.</p>
+	 * 
+	 * @param type the index type
+	 */
+	private void openLazyIndexInBackground(final String type) {
+		final LazyIndex lazy = lazyIndexes.get(type);
+		if ( lazy == null ) {
+			return;
+		}
+		synchronized ( lazy ) {
+			if ( lazy.backgroundOpen ) {
+				return;
+			}
+			lazy.backgroundOpen = true;
+		}
+		Thread t = new Thread("LuceneSearchService-open-" +type) {
+			@Override
+			public void run() {
+				try {
+					openLazyIndex(type);
+				} catch ( Exception e ) {
+					log.warn("Unable to open index [" +type +"]", e);
+				} finally {
+					synchronized ( lazy ) {
+						lazy.backgroundOpen = false;
+					}
+				}
+				if ( !lazyIndexes.containsKey(type) ) {
+					flush(type);
+				}
+			}
+		};
+		t.setDaemon(true);
+		t.start();
 	}
 
 	/**
-	 * Verify the IndexData for an index.
-	 * @param plugin the index to verify
+	 * Set up the IndexData for an index and initialize its plugin.
+	 * @param plugin the index to set up
+	 * @return the IndexData, or <em>null</em> if the index directory is not 
+	 * available
 	 * @throws RuntimeException if an error occurs
 	 */
-	private void setupAndVerifyIndex(LucenePlugin plugin) {
+	private IndexData setupIndex(LucenePlugin plugin) {
 		String type = plugin.getIndexType();
 		File indexDir = new File(indexDirectory, type.toString());
 		
@@ -347,7 +857,7 @@ public class LuceneSearchService implements LuceneService {
 			}
 			log.warn("Unable to create Lucene index directory [" 
 					+indexDir.getAbsolutePath() +"]");
-			return;
+			return null;
 		}
 		try {
 			if ( !indexDataMap.containsKey(type) ) {
@@ -360,23 +870,115 @@ public class LuceneSearchService implements LuceneService {
 				data.type = type;
 				data.plugin = plugin;
 			}
-			IndexData indexData = getIndexData(type);
-			// indexData.indexDirectory = indexDir;
-			if ( plugin.getAnalyzer() == null ) {
-				throw new RuntimeException("Analyzer not configured for index [" 
-						+type +"]");
+		} catch ( IOException e ) {
+			if ( throwExceptionDuringInitialize ) {
+				throw new RuntimeException("Unable to open Lucene index [" 
+					+type +"] at [" +indexDir.getAbsolutePath() +"]", e);
 			}
+			log.warn("Unable to open Lucene index [" 
+					+type +"] at [" +indexDir.getAbsolutePath() +"]", e);
+			return null;
+		}
+		IndexData indexData = getIndexData(type);
+		// indexData.indexDirectory = indexDir;
+		if ( plugin.getAnalyzer() == null ) {
+			throw new RuntimeException("Analyzer not configured for index [" 
+					+type +"]");
+		}
 
-			indexData.plugin = plugin;
-			indexData.config = plugin.init(this, Collections.unmodifiableSet(
-					this.indexEventListeners));
-			if ( indexData.config == null ) {
-				throw new RuntimeException("LuceneIndexConfig for plugin ["
-						+plugin +"] is null");
+		indexData.plugin = plugin;
+		indexData.config = plugin.init(this, Collections.unmodifiableSet(
+				this.indexEventListeners));
+		if ( indexData.config == null ) {
+			throw new RuntimeException("LuceneIndexConfig for plugin ["
+					+plugin +"] is null");
+		}
+		indexData.extendedConfig = (indexData.config instanceof LucenePlugin.ExtendedIndexConfig
+				? (LucenePlugin.ExtendedIndexConfig)indexData.config 
+				: DEFAULT_EXTENDED_CONFIG);
+		return indexData;
+	}
+	
+	/**
+	 * Verify a set of indexes, in parallel if there is more than one.
+	 * 
+	 * @param dataList the indexes to verify
+	 * @throws RuntimeException if an error occurs verifying any index and
+	 * <code>throwExceptionDuringInitialize</code> is <em>true</em>
+	 */
+	private void verifyIndexes(List<IndexData> dataList) {
+		int threads = (verifyThreadCount > 0 
+				? Math.min(dataList.size(), verifyThreadCount) : dataList.size());
+		if ( threads < 2 ) {
+			for ( IndexData data : dataList ) {
+				verifyIndex(data);
 			}
-			
-			if ( !IndexReader.indexExists(indexData.dir) ) {
-				IndexResults results = plugin.reindex();
+			return;
+		}
+		long start = System.currentTimeMillis();
+		ExecutorService executor = Executors.newFixedThreadPool(threads, 
+				new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger(0);
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "LuceneSearchService-verify-" 
+								+count.incrementAndGet());
+						t.setDaemon(true);
+						return t;
+					}
+				});
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>(dataList.size());
+			for ( final IndexData data : dataList ) {
+				futures.add(executor.submit(new Runnable() {
+					@Override
+					public void run() {
+						verifyIndex(data);
+					}
+				}));
+			}
+			RuntimeException error = null;
+			for ( Future<?> future : futures ) {
+				try {
+					future.get();
+				} catch ( InterruptedException e ) {
+					throw new RuntimeException("Interrupted verifying Lucene indexes", e);
+				} catch ( ExecutionException e ) {
+					if ( error == null ) {
+						error = (e.getCause() instanceof RuntimeException 
+								? (RuntimeException)e.getCause() 
+								: new RuntimeException(e.getCause()));
+					}
+				}
+			}
+			if ( error != null ) {
+				throw error;
+			}
+		} finally {
+			executor.shutdown();
+		}
+		if ( log.isInfoEnabled() ) {
+			log.info("Verified " +dataList.size() +" Lucene indexes with " +threads 
+					+" threads in " +(System.currentTimeMillis() - start) +"ms");
+		}
+	}
+	
+	/**
+	 * Verify the index for an IndexData, creating it if it does not exist 
+	 * and checking its integrity if <code>checkIndexOnStartup</code> is 
+	 * <em>true</em>.
+	 * @param indexData the index to verify
+	 * @throws RuntimeException if an error occurs
+	 */
+	private void verifyIndex(IndexData indexData) {
+		final String type = indexData.type;
+		final long start = System.currentTimeMillis();
+		try {
+			if ( replicationMode == ReplicationMode.REPLICA ) {
+				// index is copied from the primary
+				indexData.verifyStatus = "replica";
+			} else if ( !IndexReader.indexExists(indexData.dir) ) {
+				IndexResults results = indexData.plugin.reindex();
 				if ( results != null && results.getErrors().size() > 0 ) {
 					String msg = results.getNumIndexed() +" leads indexed OK, " 
 						+results.getErrors().size() +" leads could not be indexed.\n"
@@ -387,16 +989,83 @@ public class LuceneSearchService implements LuceneService {
 					}
 					log.error(msg);
 				}
+				indexData.verifyStatus = "created";
+			} else if ( checkIndexOnStartup ) {
+				checkIndex(indexData);
+			} else {
+				indexData.verifyStatus = "exists";
 			}
-
 		} catch ( IOException e ) {
+			indexData.verifyStatus = "error: " +e.getMessage();
 			if ( throwExceptionDuringInitialize ) {
 				throw new RuntimeException("Unable to verify existance of Lucene index [" 
-					+type +"] at [" +indexDir.getAbsolutePath() +"]", e);
+					+type +"] at [" +indexData.dir +"]", e);
 			}
 			log.warn("Unable to verify existance of Lucene index [" 
-					+type +"] at [" +indexDir.getAbsolutePath() +"]", e);
+					+type +"] at [" +indexData.dir +"]", e);
+		} finally {
+			indexData.verifyTimeMs = System.currentTimeMillis() - start;
+			if ( log.isInfoEnabled() ) {
+				log.info("Verified Lucene index [" +type +"] in " +indexData.verifyTimeMs 
+						+"ms: " +indexData.verifyStatus);
+			}
+		}
+	}
+	
+	/**
+	 * Check the integrity of an index with CheckIndex, repairing it if 
+	 * corrupt and marking it for a rebuild.
+	 * 
+	 * <p>If the index can be read, segments that fail the check are removed
+	 * so the rest of the index can still be searched until the rebuild 
+	 * finishes. If its segments are missing or can't be opened, the index is
+	 * replaced by an empty one. The index is only changed when CheckIndex 
+	 * reports corruption; if the check itself fails, or the index was 
+	 * written by a newer Lucene version than CheckIndex understands, the 
+	 * index is left alone and an IOException thrown.</p>
+	 * 
+	 * @param data the index to check
+	 * @throws IOException if the index could not be checked, or an IO error
+	 * occurs repairing the index
+	 */
+	private void checkIndex(IndexData data) throws IOException {
+		CheckIndex checker = new CheckIndex(data.dir);
+		checker.setInfoStream(null);
+		CheckIndex.Status status;
+		try {
+			status = checker.checkIndex();
+		} catch ( Exception e ) {
+			throw new IOException("Unable to check index: " +e, e);
+		}
+		if ( status.clean ) {
+			data.verifyStatus = "clean";
+			return;
+		}
+		if ( status.toolOutOfDate || status.missingSegmentVersion ) {
+			throw new IOException("Unable to check index: format [" 
+					+status.segmentFormat +"] not supported by this Lucene version");
+		}
+		data.writeLock.lock();
+		try {
+			if ( status.missingSegments || status.cantOpenSegments ) {
+				log.error("Lucene index [" +data.type +"] is unreadable; replacing with "
+						+"empty index");
+				createIndexWriter(data, true, false).close();
+				data.verifyStatus = "unreadable, replaced with empty index";
+			} else if ( status.numBadSegments > 0 ) {
+				log.error("Lucene index [" +data.type +"] is corrupt: " 
+						+status.numBadSegments +" bad segments with " 
+						+status.totLoseDocCount +" documents; removing bad segments");
+				checker.fixIndex(status);
+				data.verifyStatus = "repaired, removed " +status.numBadSegments 
+					+" segments with " +status.totLoseDocCount +" documents";
+			} else {
+				throw new IOException("Index check not clean, but no corruption reported");
+			}
+		} finally {
+			data.writeLock.unlock();
 		}
+		data.rebuildPending = true;
 	}
 	
 	/**
@@ -406,8 +1075,17 @@ public class LuceneSearchService implements LuceneService {
 	public synchronized void finish() {
 		if ( finished ) return;
 		
-		if ( indexQueueFlushTimer != null ) {
-			indexQueueFlushTimer.cancel();
+		if ( scheduler != null ) {
+			scheduler.shutdown();
+			scheduler = null;
+		}
+		if ( termIndexExecutor != null ) {
+			termIndexExecutor.shutdown();
+			termIndexExecutor = null;
+		}
+		if ( searchExecutor != null ) {
+			searchExecutor.shutdown();
+			searchExecutor = null;
 		}
 		if ( indexQueue != null ) {
 			if ( log.isInfoEnabled() ) {
@@ -416,6 +1094,13 @@ public class LuceneSearchService implements LuceneService {
 			indexQueue.stop();
 			indexQueue = null;
 		}
+		long deadline = System.currentTimeMillis() + indexEventShutdownTimeoutMs;
+		for ( IndexListener listener : indexEventListeners ) {
+			if ( listener instanceof AsyncIndexListener ) {
+				((AsyncIndexListener)listener).shutdown(
+						Math.max(0, deadline - System.currentTimeMillis()));
+			}
+		}
 		
 		finished = true;
 		log.info("LuceneSearchService.finish() complete.");
@@ -431,6 +1116,9 @@ public class LuceneSearchService implements LuceneService {
 	 *         if the IndexData is not available
 	 */
 	private IndexData getIndexData(String type) {
+		if ( !lazyIndexes.isEmpty() ) {
+			openLazyIndex(type);
+		}
 		IndexData data = indexDataMap.get(type);
 		if ( data == null ) {
 			throw new IllegalArgumentException("Index [" + type + "] not avaialble");
@@ -496,6 +1184,9 @@ public class LuceneSearchService implements LuceneService {
 					+"], LuceneSearchService is shut down");
 			return;
 		}
+		if ( isReplica(type, object) ) {
+			return;
+		}
 		IndexQueueThreadCommand command = new IndexQueueThreadCommand(object,
 				type, IndexQueueThreadCommand.Operation.UPDATE, false);
 		if ( this.updateBufferSize < 1 ) {
@@ -518,6 +1209,9 @@ public class LuceneSearchService implements LuceneService {
 					+"], LuceneSearchService is shut down");
 			return;
 		}
+		if ( isReplica(type, objectId) ) {
+			return;
+		}
 		IndexQueueThreadCommand command = new IndexQueueThreadCommand(objectId,
 				type, IndexQueueThreadCommand.Operation.UPDATE, true);
 		if ( this.updateBufferSize < 1 ) {
@@ -540,6 +1234,9 @@ public class LuceneSearchService implements LuceneService {
 					+"], LuceneSearchService is shut down");
 			return;
 		}
+		if ( isReplica(type, objectId) ) {
+			return;
+		}
 		IndexQueueThreadCommand command = new IndexQueueThreadCommand(objectId,
 				type, IndexQueueThreadCommand.Operation.DELETE, true);
 		if ( this.updateBufferSize < 1 ) {
@@ -554,6 +1251,40 @@ public class LuceneSearchService implements LuceneService {
 		}
 	}
 
+	@Override
+	public void deleteObjectsById(final String type, final Collection<?> objectIds) {
+		if ( objectIds == null || objectIds.isEmpty() ) {
+			return;
+		}
+		if ( indexQueue == null ) {
+			log.warn("Unable to delete " +objectIds.size() +" objects by ID from index [" 
+					+type +"], LuceneSearchService is shut down");
+			return;
+		}
+		
+		if ( isReplica(type, objectIds) ) {
+			return;
+		}
+		
+		// apply any queued updates first, so they don't re-add deleted objects later
+		flush(type);
+		
+		final List<IndexEvent> events = new ArrayList<IndexEvent>(objectIds.size());
+		doIndexReaderOp(type, new IndexReaderOp() {
+			@Override
+			public void doReaderOp(String indexType, IndexReader reader) {
+				for ( Object objectId : objectIds ) {
+					if ( objectId == null ) {
+						continue;
+					}
+					deleteFromIndex(indexType, reader, objectId);
+					events.add(new IndexEvent(objectId, EventType.DELETE, indexType));
+				}
+			}
+		});
+		LuceneServiceUtils.publishIndexEvents(events, this.indexEventListeners);
+	}
+
 	@Override
 	public IndexStatusCallback reindex(final String type) {
 		if ( indexQueue == null ) {
@@ -561,6 +1292,9 @@ public class LuceneSearchService implements LuceneService {
 					+"], LuceneSearchService is shut down");
 			return null;
 		}
+		if ( isReplica(type, "reindex") ) {
+			return null;
+		}
 		final IndexData indexData = getIndexData(type);
 		if ( this.updateBufferSize < 1 ) {
 			LuceneIndexStatusCallback callback = new LuceneIndexStatusCallback() {
@@ -586,14 +1320,101 @@ public class LuceneSearchService implements LuceneService {
 	}
 
 	@Override
-	public SearchResults find(String index, SearchCriteria criteria) {
-		final IndexData indexData = getIndexData(index);
-		if ( criteria.isCountOnly() ) {
-			Object o = indexData.plugin.getNativeQuery(criteria);
-			if ( o instanceof Query ) {
-				final BasicSearchResults results = new BasicSearchResults();
-				doIndexQueryOp(index, (Query)o, false, new IndexQueryOp() {
-
+	public IndexStatusCallback bulkIndex(final String type, final Iterable<?> items, 
+			final boolean indexById) {
+		if ( indexQueue == null ) {
+			log.warn("Unable to bulk index into index [" +type 
+					+"], LuceneSearchService is shut down");
+			return null;
+		}
+		if ( isReplica(type, "bulk index") ) {
+			return null;
+		}
+		final IndexData indexData = getIndexData(type);
+		final BasicIndexResults results = new BasicIndexResults();
+		LuceneIndexStatusCallback callback = new LuceneIndexStatusCallback() {
+			@Override
+			public void go() {
+				try {
+					final List<IndexEvent> events = new ArrayList<IndexEvent>();
+					doIndexWriterOp(type, false, false, true, new IndexWriterOp() {
+						@Override
+						public void doWriterOp(String indexType, IndexWriter writer) {
+							bulkIndex(indexData, writer, items, indexById, results, events);
+						}
+					});
+					
+					// publish once committed, and without holding the write lock
+					final int eventBatchSize = Math.max(batchMinMergeDocs, 1);
+					for ( int i = 0; i < events.size(); i += eventBatchSize ) {
+						LuceneServiceUtils.publishIndexEvents(events.subList(i, 
+								Math.min(i + eventBatchSize, events.size())), 
+								indexEventListeners);
+					}
+				} finally {
+					results.setFinished(true);
+				}
+			}
+		};
+		callback.setIndexResults(results);
+		if ( this.updateBufferSize < 1 ) {
+			// no queue thread to run the callback, so run it now
+			try {
+				callback.go();
+			} finally {
+				synchronized ( callback ) {
+					callback.done = true;
+				}
+			}
+			return callback;
+		}
+		IndexQueueThreadCommand command = new IndexQueueThreadCommand(
+				ZERO, type, IndexQueueThreadCommand.Operation.CALLBACK, true);
+		command.statusCallback = callback;
+		indexQueue.enqueue(command);
+		return callback;
+	}
+	
+	private void bulkIndex(IndexData data, IndexWriter writer, Iterable<?> items, 
+			boolean indexById, BasicIndexResults results, List<IndexEvent> events) {
+		long start = System.currentTimeMillis();
+		for ( Object item : items ) {
+			if ( item == null ) {
+				continue;
+			}
+			try {
+				if ( indexById ) {
+					data.plugin.index(item, writer);
+				} else {
+					data.plugin.indexObject(item, writer);
+				}
+				results.indexed();
+				events.add(new IndexEvent(item, EventType.UPDATE, data.type));
+			} catch ( RuntimeException e ) {
+				Object id = indexById ? item : data.plugin.getIdForObject(item);
+				if ( log.isDebugEnabled() ) {
+					log.debug("Unable to index [" +id +"] into index [" +data.type +"]", e);
+				}
+				results.failed(id instanceof Serializable ? (Serializable)id 
+						: String.valueOf(id), e.getMessage());
+			}
+		}
+		if ( traceLog.isInfoEnabled() ) {
+			traceLog.info(TraceOp.UPDATE +"Bulk indexed " +results.getNumIndexed() 
+					+" of " +results.getNumProcessed() +" items into index [" 
+					+data.type +"] in " +(System.currentTimeMillis() - start) +"ms");
+		}
+	}
+
+	@Override
+	public SearchResults find(String index, SearchCriteria criteria) {
+		final IndexData indexData = getIndexData(index);
+		if ( criteria.isCountOnly() ) {
+			Object o = indexData.plugin.getNativeQuery(criteria);
+			if ( o instanceof Query ) {
+				final BasicSearchResults results = new BasicSearchResults();
+				doIndexQueryOp(index, (Query)o, false, new IndexQueryOp() {
+
 					@Override
 					public void doSearcherOp(String type, IndexSearcher searcher, 
 							Query query, TopDocCollector hits) throws IOException {
@@ -607,27 +1428,254 @@ public class LuceneSearchService implements LuceneService {
 		return indexData.plugin.find(criteria);
 	}
 
+	@Override
+	public IndexSearchResults find(String index, Query query, 
+			SearchCriteria criteria) {
+		return find(index, query, criteria, null);
+	}
+
+	@Override
+	public IndexSearchResults find(String index, Query query, 
+			SearchCriteria criteria, QueryControl control) {
+		return find(index, query, new SearchExecution(criteria), criteria.isCountOnly(), 
+				control);
+	}
+
+	@Override
+	public IndexSearchResults find(String index, Query query, int pageSize, 
+			SearchCursor after) {
+		return find(index, query, pageSize, after, null);
+	}
+
+	@Override
+	public IndexSearchResults find(String index, Query query, int pageSize, 
+			SearchCursor after, QueryControl control) {
+		return find(index, query, new SearchExecution(pageSize, after), false, control);
+	}
+	
+	private IndexSearchResults find(String index, Query query, 
+			final SearchExecution exec, final boolean countOnly, 
+			QueryControl queryControl) {
+		final IndexData data = getIndexData(index);
+		final BasicSearchResults results = new BasicSearchResults();
+		final Filter filter = (exec.filterNames == null ? null 
+				: getFilter(data, exec.filterNames));
+		final QueryControl control = queryControl(queryControl);
+		doIndexQueryOp(index, query, filter, ASYNCHRONOUS, exec, control, new IndexQueryOp() {
+
+			@Override
+			public void doSearcherOp(String type, IndexSearcher searcher, 
+					Query myQuery, TopDocCollector hits) throws IOException {
+				results.setTotalMatches(hits.getTotalHits());
+				results.setPartialResults(control != null && control.isPartialResults());
+				if ( exec.facetCounts != null ) {
+					results.setFacetCounts(exec.facetCounts);
+				}
+				if ( !countOnly ) {
+					ScoreDoc[] docs = hits.topDocs().scoreDocs;
+					List<Object> matches = new ArrayList<Object>(
+							Math.max(0, docs.length - exec.start));
+					buildMatches(data, searcher, docs, exec.start, docs.length, matches);
+					results.setMatches(matches);
+					if ( !results.isPartialResults() ) {
+						// matches not collected might belong on this page
+						results.setNextCursor(exec.getNextCursor(searcher, docs));
+					}
+				}
+			}
+		});
+		return results;
+	}
+
+	@Override
+	public MultiIndexSearchResults find(Collection<String> indexes, String query, 
+			int maxResults) {
+		Map<String, Query> queries = new LinkedHashMap<String, Query>();
+		for ( String index : indexes ) {
+			queries.put(index, parseQuery(index, query));
+		}
+		return find(queries, maxResults);
+	}
+
+	@Override
+	public MultiIndexSearchResults find(Map<String, Query> queries, int maxResults) {
+		return find(queries, maxResults, null);
+	}
+
+	@Override
+	public MultiIndexSearchResults find(Map<String, Query> queries, int maxResults, 
+			QueryControl queryControl) {
+		final QueryControl control = queryControl(queryControl);
+		List<IndexSearchTask> tasks = new ArrayList<IndexSearchTask>(queries.size());
+		for ( Map.Entry<String, Query> me : queries.entrySet() ) {
+			tasks.add(new IndexSearchTask(me.getKey(), me.getValue(), maxResults, control));
+		}
+		
+		// search the first index in this thread, the rest in parallel
+		ExecutorService executor = this.searchExecutor;
+		List<Future<?>> futures = new ArrayList<Future<?>>(tasks.size());
+		try {
+			for ( int i = 1; i < tasks.size(); i++ ) {
+				if ( executor == null ) {
+					tasks.get(i).run();
+				} else {
+					futures.add(executor.submit(tasks.get(i)));
+				}
+			}
+			if ( tasks.size() > 0 ) {
+				tasks.get(0).run();
+			}
+			for ( int i = 0; i < futures.size(); i++ ) {
+				String index = tasks.get(i + 1).index;
+				try {
+					futures.get(i).get();
+				} catch ( InterruptedException e ) {
+					throw new RuntimeException("Interrupted searching index [" +index +"]", e);
+				} catch ( ExecutionException e ) {
+					throw new RuntimeException("Exception searching index [" +index +"]", 
+							e.getCause());
+				}
+			}
+		} catch ( RuntimeException e ) {
+			for ( Future<?> f : futures ) {
+				f.cancel(false);
+			}
+			throw e;
+		}
+		
+		List<IndexMatch> matches = new ArrayList<IndexMatch>();
+		Map<String, Integer> totals = new LinkedHashMap<String, Integer>();
+		for ( IndexSearchTask task : tasks ) {
+			matches.addAll(task.matches);
+			totals.put(task.index, task.totalMatches);
+		}
+		Collections.sort(matches, INDEX_MATCH_SCORE_COMPARATOR);
+		if ( maxResults > 0 && matches.size() > maxResults ) {
+			matches = new ArrayList<IndexMatch>(matches.subList(0, maxResults));
+		}
+		if ( traceLog.isInfoEnabled() ) {
+			traceLog.info(TraceOp.QUERY +"Searched indexes " +totals +" for " 
+					+matches.size() +" merged matches");
+		}
+		return new MultiIndexSearchResults(matches, totals, 
+				control != null && control.isPartialResults());
+	}
+	
+	/**
+	 * Search one index for {@link LuceneSearchService#find(Map, int)}, 
+	 * building the top matches.
+	 */
+	private final class IndexSearchTask implements Runnable {
+		private final String index;
+		private final Query query;
+		private final int maxResults;
+		private final QueryControl control;
+		private final List<IndexMatch> matches = new ArrayList<IndexMatch>();
+		private int totalMatches = 0;
+		
+		private IndexSearchTask(String index, Query query, int maxResults, 
+				QueryControl control) {
+			this.index = index;
+			this.query = query;
+			this.maxResults = maxResults;
+			this.control = control;
+		}
+		
+		@Override
+		public void run() {
+			final IndexData data = getIndexData(index);
+			doIndexQueryOp(index, query, null, ASYNCHRONOUS, 
+					new SearchExecution(maxResults, null), control, new IndexQueryOp() {
+				@Override
+				public void doSearcherOp(String type, IndexSearcher searcher, 
+						Query myQuery, TopDocCollector hits) throws IOException {
+					totalMatches = hits.getTotalHits();
+					ScoreDoc[] docs = hits.topDocs().scoreDocs;
+					List<Object> built = new ArrayList<Object>(docs.length);
+					buildMatches(data, searcher, docs, 0, docs.length, built);
+					for ( int i = 0; i < docs.length; i++ ) {
+						matches.add(new IndexMatch(index, docs[i].score, built.get(i)));
+					}
+				}
+			});
+		}
+	}
+
+	@Override
+	public void registerFilter(String index, String name, Query query) {
+		IndexData data = getIndexData(index);
+		data.filters.put(name, new CachedQueryFilter(query));
+	}
+
+	@Override
+	public void unregisterFilter(String index, String name) {
+		IndexData data = getIndexData(index);
+		data.filters.remove(name);
+	}
+
+	@Override
+	public Filter getFilter(String index, String... names) {
+		return getFilter(getIndexData(index), names);
+	}
+	
+	private Filter getFilter(IndexData data, String[] names) {
+		CachedQueryFilter[] filters = new CachedQueryFilter[names.length];
+		for ( int i = 0; i < names.length; i++ ) {
+			filters[i] = data.filters.get(names[i]);
+			if ( filters[i] == null ) {
+				throw new IllegalArgumentException("Filter [" +names[i] 
+						+"] not registered for index [" +data.type +"]");
+			}
+		}
+		if ( filters.length == 1 ) {
+			return filters[0];
+		}
+		return new IntersectionFilter(filters);
+	}
+
 	@Override
 	public List<?> build(String index, final TopDocCollector hits, final int start, final int end) {
-		final LucenePlugin plugin = getPluginForString(index);
-		final int length = end > start ? end - start : 0;
+		final IndexData data = getIndexData(index);
 		final ScoreDoc[] docs = hits.topDocs().scoreDocs;
-		final int hitLength = docs.length;
-		final List<Object> searchMatches = new ArrayList<Object>(length);
+		final List<Object> searchMatches = new ArrayList<Object>();
 		doIndexSearcherOp(index, new IndexSearcherOp() {
 
 			@Override
 			public void doSearcherOp(String type, IndexSearcher searcher)
 					throws IOException {
-				for ( int i = start; i < end && i < hitLength; i++ ) {
-					int docId = docs[i].doc;
-					Document doc = searcher.doc(docId);
-					searchMatches.add(plugin.build(doc));
-				}
+				buildMatches(data, searcher, docs, start, end, searchMatches);
 			}
 		});
 		return searchMatches;
 	}
+	
+	/**
+	 * Build search match objects for a range of hits with the index plugin.
+	 * 
+	 * @param data the index data
+	 * @param searcher the searcher the hits came from
+	 * @param docs the hits
+	 * @param start the starting hits index to build from
+	 * @param end the ending hits index to build to
+	 * @param searchMatches the list to add the built objects to
+	 * @throws IOException if an IO error occurs
+	 */
+	private void buildMatches(IndexData data, IndexSearcher searcher, ScoreDoc[] docs, 
+			int start, int end, List<Object> searchMatches) throws IOException {
+		SearchMatchCache cache = getSearchMatchCache(data, searcher);
+		for ( int i = start; i < end && i < docs.length; i++ ) {
+			int docId = docs[i].doc;
+			Object match = (cache == null ? null : cache.getMatch(docId));
+			if ( match == null ) {
+				Document doc = searcher.doc(docId);
+				match = data.plugin.build(doc);
+				if ( cache != null && match != null ) {
+					cache.putMatch(docId, match);
+				}
+			}
+			searchMatches.add(match);
+		}
+	}
 
 	@Override
 	public void search(String index, String query, final LuceneSearchResultHandler handler) {
@@ -660,72 +1708,134 @@ public class LuceneSearchService implements LuceneService {
 
 	@Override
 	public LuceneSearchResults search(String type, String query,  
-			final int maxResults, final int pageSize, final int page) {
+			int maxResults, int pageSize, int page) {
+		return search(type, query, maxResults, pageSize, page, null);
+	}
+
+	@Override
+	public LuceneSearchResults search(String type, String query,  
+			final int maxResults, final int pageSize, final int page, 
+			QueryControl queryControl) {
 		Query luceneQuery = parseQuery(type, query);
 		final LuceneSearchResultsImpl results = new LuceneSearchResultsImpl();
-		doIndexQueryOp(type, luceneQuery, ASYNCHRONOUS, new IndexQueryOp() {
-			@SuppressWarnings({ "unchecked" })
+		final QueryControl control = queryControl(queryControl);
+		doIndexQueryOp(type, luceneQuery, null, ASYNCHRONOUS, null, control, 
+				new IndexQueryOp() {
 			@Override
 			public void doSearcherOp(String indexType, IndexSearcher searcher, 
 					Query myQuery, TopDocCollector hits) throws IOException {
 				int numHits = hits == null ? 0 : hits.getTotalHits();
 				results.totalMatches = numHits;
+				results.partialResults = (control != null && control.isPartialResults());
 				if ( numHits > 0 ) {
-					Set<String> seenFieldNames = new HashSet<String>();
-					results.results = new LinkedList<Map<String, String[]>>();
 					int start = 0;
-					int max = -1;
+					int end = numHits;
 					if ( pageSize > 0 ) {
 						start = pageSize * (page - 1);
-						max = pageSize;
+						end = start + pageSize;
 					}
-					int maxr = maxResults < 1 ? numHits : maxResults;
-					ScoreDoc[] docs = hits == null ? null : hits.topDocs().scoreDocs;
-					for ( int i = start; i < numHits && i < maxr && ((max--) != 0); i++ ) {
-						int docId = docs[i].doc;
-						Document doc = searcher.doc(docId);
-						List<Field> fields = doc.getFields();
-						
-						// use a TreeMap to keep keys sorted
-						Map<String, String[]> data = new TreeMap<String, String[]>();
-						for( Field field : fields ) {
-							data.put(field.name(), doc.getValues(field.name()));
-						}
-						
-						Set<String> fieldSet = new HashSet<String>();
-						fieldSet.addAll(data.keySet());
-						
-						// see if doc was missing any seen fields...
-						Collection<String> fill = CollectionUtils.subtract(
-								seenFieldNames, fieldSet);
-						if ( fill.size() > 0 ) {
-							for ( String fieldName : fill ) {
-								data.put(fieldName, null);
-							}
-						}
-						
-						// see if any fields we have not seen yet...
-						Collection<String> missing = CollectionUtils.subtract(
-								fieldSet, seenFieldNames);
-						
-						// any keys in 'missing' need to be added to all previous
-						// results so they all have same keys
-						if ( missing.size() > 0 ) {
-							for ( Map<String, String[]> map : results.results ) {
-								for ( Iterator<String> itr = missing.iterator(); itr.hasNext(); ) {
-									map.put(itr.next(), null);
-								}
-							}
-							seenFieldNames.addAll(missing);
-						}
-						results.results.add(data);
+					if ( maxResults > 0 && maxResults < end ) {
+						end = maxResults;
 					}
+					ScoreDoc[] docs = hits.topDocs().scoreDocs;
+					results.results = new LinkedList<Map<String, String[]>>();
+					addResultMaps(searcher, docs, start, end, results.results);
+				}
+			}			
+		});
+		return results;
+	}
+
+	@Override
+	public LuceneSearchResults search(String type, String query, 
+			int pageSize, SearchCursor after) {
+		return search(type, query, pageSize, after, null);
+	}
+
+	@Override
+	public LuceneSearchResults search(String type, String query, 
+			int pageSize, SearchCursor after, QueryControl queryControl) {
+		Query luceneQuery = parseQuery(type, query);
+		final LuceneSearchResultsImpl results = new LuceneSearchResultsImpl();
+		final SearchExecution exec = new SearchExecution(pageSize, after);
+		final QueryControl control = queryControl(queryControl);
+		doIndexQueryOp(type, luceneQuery, null, ASYNCHRONOUS, exec, control, 
+				new IndexQueryOp() {
+			@Override
+			public void doSearcherOp(String indexType, IndexSearcher searcher, 
+					Query myQuery, TopDocCollector hits) throws IOException {
+				results.totalMatches = hits.getTotalHits();
+				results.partialResults = (control != null && control.isPartialResults());
+				ScoreDoc[] docs = hits.topDocs().scoreDocs;
+				results.results = new LinkedList<Map<String, String[]>>();
+				addResultMaps(searcher, docs, 0, docs.length, results.results);
+				if ( !results.partialResults ) {
+					// matches not collected might belong on this page
+					results.nextCursor = exec.getNextCursor(searcher, docs);
 				}
 			}			
 		});
 		return results;
 	}
 	
+	/**
+	 * Load a range of hits as Map objects of their stored field values.
+	 * 
+	 * <p>All Maps are given the same keys, by adding <em>null</em> values 
+	 * for fields a document does not have.</p>
+	 * 
+	 * @param searcher the searcher the hits came from
+	 * @param docs the hits
+	 * @param start the starting hits index
+	 * @param end the ending hits index
+	 * @param resultMaps the list to add the Maps to
+	 * @throws IOException if an IO error occurs
+	 */
+	@SuppressWarnings("unchecked")
+	private void addResultMaps(IndexSearcher searcher, ScoreDoc[] docs, int start, 
+			int end, List<Map<String, String[]>> resultMaps) throws IOException {
+		Set<String> seenFieldNames = new HashSet<String>();
+		for ( int i = start; i < end && i < docs.length; i++ ) {
+			int docId = docs[i].doc;
+			Document doc = searcher.doc(docId);
+			List<Field> fields = doc.getFields();
+			
+			// use a TreeMap to keep keys sorted
+			Map<String, String[]> data = new TreeMap<String, String[]>();
+			for( Field field : fields ) {
+				data.put(field.name(), doc.getValues(field.name()));
+			}
+			
+			Set<String> fieldSet = new HashSet<String>();
+			fieldSet.addAll(data.keySet());
+			
+			// see if doc was missing any seen fields...
+			Collection<String> fill = CollectionUtils.subtract(
+					seenFieldNames, fieldSet);
+			if ( fill.size() > 0 ) {
+				for ( String fieldName : fill ) {
+					data.put(fieldName, null);
+				}
+			}
+			
+			// see if any fields we have not seen yet...
+			Collection<String> missing = CollectionUtils.subtract(
+					fieldSet, seenFieldNames);
+			
+			// any keys in 'missing' need to be added to all previous
+			// results so they all have same keys
+			if ( missing.size() > 0 ) {
+				for ( Map<String, String[]> map : resultMaps ) {
+					for ( Iterator<String> itr = missing.iterator(); itr.hasNext(); ) {
+						map.put(itr.next(), null);
+					}
+				}
+				seenFieldNames.addAll(missing);
+			}
+			resultMaps.add(data);
+		}
+	}
+	
 	/**
 	 * Add a series of non-required TermQuery objects to a BooleanQuery, 
 	 * from tokenizing a string with the Analyzer used by the index type.
@@ -739,9 +1849,9 @@ public class LuceneSearchService implements LuceneService {
 			String field, String type) {
 		StringReader reader = new StringReader(query);
 		IndexData data = getIndexData(type);
-		TokenStream stream = data.plugin.getAnalyzer().tokenStream(
-				field, reader);
 		try {
+			TokenStream stream = data.plugin.getAnalyzer().reusableTokenStream(
+					field, reader);
 		    Token t = new Token();
 			while ( true ) {
 			    Token token = stream.next(t);
@@ -773,9 +1883,9 @@ public class LuceneSearchService implements LuceneService {
 			String field, String type) {
 		StringReader reader = new StringReader(query);
 		IndexData data = getIndexData(type);
-		TokenStream stream = data.plugin.getAnalyzer().tokenStream(
-				field, reader);
 		try {
+			TokenStream stream = data.plugin.getAnalyzer().reusableTokenStream(
+					field, reader);
 		    Token t = new Token();
 			while ( true ) {
 			    Token token = stream.next(t);
@@ -786,7 +1896,9 @@ public class LuceneSearchService implements LuceneService {
 				if ( p != null ) {
 					token.setPayload((Payload) p.clone());
 				}
-				Query q = new FuzzyQuery(new Term(field, token.term()));
+				Query q = new LimitedFuzzyQuery(new Term(field, token.term()), 
+						fuzzyMinSimilarity, fuzzyPrefixLength, fuzzyMaxExpansions, 
+						getFuzzyTermIndex(data, field));
 				rootQuery.add(q, Occur.SHOULD);
 			}
 		} catch ( IOException e ) {
@@ -794,6 +1906,33 @@ public class LuceneSearchService implements LuceneService {
 		}
 	}
 	
+	/**
+	 * Get the fuzzy term index cache for a field, if the index is configured
+	 * to keep one.
+	 * 
+	 * @param data the index data
+	 * @param field the field
+	 * @return the cache, or <em>null</em> if not configured for the field
+	 */
+	private FuzzyTermIndex.Cache getFuzzyTermIndex(IndexData data, String field) {
+		if ( data.config == null ) {
+			return null;
+		}
+		List<String> fields = data.extendedConfig.getFuzzyTermIndexFields();
+		if ( fields == null || !fields.contains(field) ) {
+			return null;
+		}
+		FuzzyTermIndex.Cache cache = data.fuzzyTermIndexes.get(field);
+		if ( cache == null ) {
+			cache = new FuzzyTermIndex.Cache(field);
+			FuzzyTermIndex.Cache existing = data.fuzzyTermIndexes.putIfAbsent(field, cache);
+			if ( existing != null ) {
+				cache = existing;
+			}
+		}
+		return cache;
+	}
+	
 	@Override
 	public void mergeMagic(Map<String,String> mergeData, String field, Object value, String joinOp, Pattern matchPattern) {
 		if ( value == null || !StringUtils.hasText(value.toString()) ) {
@@ -801,21 +1940,7 @@ public class LuceneSearchService implements LuceneService {
 		}
 		StringBuilder tmp = new StringBuilder();
 		if ( value instanceof List ) {
-			List<?> listValue = (List<?>)value;
-			if ( matchPattern != null ) {
-				List<String> matchList = new LinkedList<String>();
-				for ( Object o : listValue ) {
-					String oStr = o == null ? null : o.toString();
-					if ( oStr != null && !matchPattern.matcher(oStr).find() ) {
-						// didn't match, so convert to null
-						oStr = null;
-					}
-					matchList.add(oStr);
-				}
-				appendTerms(tmp, field, matchList, joinOp, false);
-			} else {
-				appendTerms(tmp, field, listValue, joinOp, false);
-			}
+			appendTerms(tmp, field, (List<?>)value, joinOp, false, matchPattern);
 		} else {
 			String valueStr = value.toString();
 			if ( matchPattern != null ) {
@@ -831,6 +1956,11 @@ public class LuceneSearchService implements LuceneService {
 		}
 	}
 
+	@Override
+	public QueryBuilder queryBuilder(String indexType) {
+		return new QueryBuilder(getPluginForString(indexType).getAnalyzer());
+	}
+
 	@Override
 	public Query parseQuery(String indexType, String query) {
 		if ( traceLog.isDebugEnabled() ) {
@@ -873,66 +2003,54 @@ public class LuceneSearchService implements LuceneService {
 		}
 		buf.append(field).append(FIELD_DELIM);
 
-		appendTermValue(buf, value);
-	}
-	
-	private void appendTermValue(StringBuilder buf, String value) {
-		// we use the LUCENE_RANGE regexp to check if value is already a lucene range, 
-		// which we don't want to enclose in quotes. Otherwise, if special characters
-		// are in the value, we'll enclose the value in quotes
-		
-		Matcher specialWordMatcher = LUCENE_SPECIAL_WORD.matcher(value);
-		
-		if ( !LUCENE_RANGE.matcher(value).matches() && (NON_ALPHANUMERIC.matcher(value).find() 
-				|| specialWordMatcher.matches()) ) {
-			// begin SCR 45: work around for Lucene QueryParser bug that can't parse nested quotes
-			Matcher quotes = LUCENE_ESCAPED_QUOTES_BUG.matcher(value);
-			if ( quotes.find() ) {
-				// remove the quotes
-				value = quotes.replaceAll("");
-				
-				// if we removed the quotes and length is now 0, 
-				// reset back to empty quote string to prevent empty search
-				if ( value.length() < 1 ) {
-					value = "\"\"";
-				}
-			}
-			// end SCR 45
-			
-			Matcher special = LUCENE_SPECIAL.matcher(value);
-			if ( special.find() ) {
-				// contains Lucene-reserved character, escape with \
-				value = special.replaceAll("\\\\$1");
-			}
-			if ( value.indexOf(" ") >= 0 || specialWordMatcher.matches() ) {
-				buf.append('"').append(value).append('"');
-			} else {
-				buf.append(value);
-			}
-		} else {
-			buf.append(value);
-		}
+		LuceneServiceUtils.appendEscapedTermValue(buf, value);
 	}
 	
 	@Override
 	public void appendTerms(StringBuilder buf, String field, List<?> input, String booleanOp, boolean required) {
+		appendTerms(buf, field, input, booleanOp, required, null);
+	}
+	
+	/**
+	 * Append a group of search terms to a query buffer, skipping any terms
+	 * that are empty or do not match a pattern.
+	 * 
+	 * <p>The terms are examined in place, without copying them into an 
+	 * intermediate list first.</p>
+	 * 
+	 * @param buf the query buffer
+	 * @param field the index field
+	 * @param input the list of query terms
+	 * @param booleanOp the boolean operation to join the search terms with
+	 * @param required is the group required?
+	 * @param matchPattern if non-null then skip terms that do not contain 
+	 * the specified pattern
+	 */
+	private void appendTerms(StringBuilder buf, String field, List<?> input, 
+			String booleanOp, boolean required, Pattern matchPattern) {
 		if ( input.size() < 1 ) {
 			return; // skip
 		}
-		List<String> values = new ArrayList<String>(input.size());
+		
+		// first pass: count the terms to append, so we know if a group is needed
+		int count = 0;
+		String first = null;
 		for ( Object o : input ) {
-			if ( o != null ) {
-				String str = o.toString().trim();
-				if ( StringUtils.hasText(str) ) {
-					values.add(str);
+			String term = termValue(o, matchPattern);
+			if ( term != null ) {
+				if ( count == 0 ) {
+					first = term;
+				}
+				if ( ++count > 1 ) {
+					break;
 				}
 			}
 		}
-		if ( values.size() < 1 ) {
+		if ( count < 1 ) {
 			return; // skip
 		}
-		if ( values.size() == 1 ) {
-			appendTerm(buf, field, values.get(0).toString(), required, false);
+		if ( count == 1 ) {
+			appendTerm(buf, field, first, required, false);
 			return;
 		}
 		if ( buf.length() > 0 ) {
@@ -942,17 +2060,34 @@ public class LuceneSearchService implements LuceneService {
 			buf.append('+');
 		}
 		buf.append('(');
-		int i = 0;
-		for ( Iterator<?> itr = values.iterator(); itr.hasNext(); i++ ) {
-			String term = itr.next().toString();
-			if ( i > 0 ) {
+		boolean appended = false;
+		for ( Object o : input ) {
+			String term = termValue(o, matchPattern);
+			if ( term == null ) {
+				continue;
+			}
+			if ( appended ) {
 				buf.append(' ').append(booleanOp).append(' ');
 			}
 			buf.append(field).append(FIELD_DELIM);
-			appendTermValue(buf, term);
+			LuceneServiceUtils.appendEscapedTermValue(buf, term);
+			appended = true;
 		}
 		buf.append(')');
 	}
+	
+	private String termValue(Object o, Pattern matchPattern) {
+		if ( o == null ) {
+			return null;
+		}
+		String str = o.toString();
+		if ( matchPattern != null && !matchPattern.matcher(str).find() ) {
+			// didn't match, so skip
+			return null;
+		}
+		str = str.trim();
+		return StringUtils.hasText(str) ? str : null;
+	}
 
 	/**
 	 * Delete a Document from the index.
@@ -980,8 +2115,6 @@ public class LuceneSearchService implements LuceneService {
 							+" Document for ID " +id +" from reader "
 							+reader +" (" +reader.directory().toString() +")");
 				}
-				LuceneServiceUtils.publishIndexEvent(new IndexEvent(id,
-						EventType.DELETE, type), this.indexEventListeners);
 				return result;
 			}
 		} catch ( IOException e ) {
@@ -1025,6 +2158,47 @@ public class LuceneSearchService implements LuceneService {
 					log.warn("Interrupted while waiting for index to complete", e);
 				}
 			}
+			rethrow();
+		}
+		
+		/**
+		 * Wait for the operation to complete, within a query's time budget.
+		 * 
+		 * @param control the query control
+		 * @throws RuntimeException if the query is cancelled or its time 
+		 * budget used up before the operation completes
+		 */
+		private void waitUntilDone(QueryControl control) {
+			synchronized ( this ) {
+				try {
+					long giveUpTime = 0;
+					while ( !done ) {
+						long remaining = control.getRemainingMs();
+						if ( control.isCancelled() || remaining <= 0 ) {
+							// stop the query, allowing a moment for it to finish with 
+							// partial results if it is already running
+							long now = System.currentTimeMillis();
+							if ( giveUpTime == 0 ) {
+								giveUpTime = now + QUERY_WAIT_POLL_MS;
+							} else if ( now >= giveUpTime ) {
+								throw new RuntimeException("Query " 
+										+(remaining <= 0 ? "timed out" : "cancelled") 
+										+" waiting on index queue");
+							}
+							control.cancel();
+							remaining = QUERY_WAIT_POLL_MS;
+						}
+						wait(Math.min(remaining, QUERY_WAIT_POLL_MS));
+					}
+				} catch (InterruptedException e) {
+					control.cancel();
+					throw new RuntimeException("Interrupted waiting on index queue", e);
+				}
+			}
+			rethrow();
+		}
+		
+		private void rethrow() {
 			if ( throwable != null ) {
 				if ( log.isDebugEnabled() ) {
 					log.debug("Encountered error " +throwable.getClass().getName() 
@@ -1039,10 +2213,58 @@ public class LuceneSearchService implements LuceneService {
 
 	}
 	
-	private void optimizeIndex(IndexData data, IndexWriter writer) throws IOException {
-		if ( neverOptimize ) {
-			return;
-		}
+	/**
+	 * Create a new IndexWriter configured from the index's LuceneIndexConfig.
+	 * 
+	 * @param data the index data
+	 * @param create <em>true</em> to create a new index
+	 * @param batch <em>true</em> to use the batch buffer and merge settings
+	 * @return the new IndexWriter
+	 * @throws IOException if an IO error occurs
+	 */
+	private FlushCountingIndexWriter createIndexWriter(IndexData data, boolean create, 
+			boolean batch) throws IOException {
+		FlushCountingIndexWriter writer = new FlushCountingIndexWriter(data, create);
+		data.deletionPolicyInitialized = true;
+		if ( traceLog.isInfoEnabled() ) {
+			traceLog.info(TraceOp.CONCURRENCY +"Created new IndexWriter " 
+					+writer +" for index [" +data.type +"]");
+		}
+		LucenePlugin.ExtendedIndexConfig extendedConfig = data.extendedConfig;
+		writer.setUseCompoundFile(extendedConfig.isUseCompoundFile());
+		if ( batch ) {
+			// Lucene flushes at whichever limit is reached first, so only use one
+			if ( this.batchRamBufferSizeMB > 0 ) {
+				writer.setRAMBufferSizeMB(this.batchRamBufferSizeMB);
+				writer.setMaxBufferedDocs(IndexWriter.DISABLE_AUTO_FLUSH);
+			} else {
+				writer.setMaxBufferedDocs(this.batchMinMergeDocs);
+				writer.setRAMBufferSizeMB(IndexWriter.DISABLE_AUTO_FLUSH);
+			}
+			writer.setMergeFactor(this.batchMergeFactor);
+		} else {
+			// set RAM buffer first, as only one of RAM or doc count flushing can be disabled
+			if ( extendedConfig.getRamBufferSizeMB() > 0 ) {
+				writer.setRAMBufferSizeMB(extendedConfig.getRamBufferSizeMB());
+			}
+			writer.setMaxBufferedDocs(data.config.getMinMergeDocs());
+			writer.setMergeFactor(data.config.getMergeFactor());
+		}
+		if ( extendedConfig.getMaxMergeMB() > 0 
+				&& writer.getMergePolicy() instanceof LogByteSizeMergePolicy ) {
+			((LogByteSizeMergePolicy)writer.getMergePolicy()).setMaxMergeMB(
+					extendedConfig.getMaxMergeMB());
+		}
+		if ( extendedConfig.getTermIndexInterval() > 0 ) {
+			writer.setTermIndexInterval(extendedConfig.getTermIndexInterval());
+		}
+		return writer;
+	}
+	
+	private void optimizeIndex(IndexData data, IndexWriter writer) throws IOException {
+		if ( neverOptimize ) {
+			return;
+		}
 		synchronized ( data.dir ) {
 			while (data.readerCount.get() > 0 ) {
 				try {
@@ -1111,6 +2333,25 @@ public class LuceneSearchService implements LuceneService {
 	@Override
 	public void doIndexQueryOp(final String type, final Query query, 
 			final boolean synchronous, final IndexQueryOp queryOp ) {
+		doIndexQueryOp(type, query, null, synchronous, null, null, queryOp);
+	}
+	
+	@Override
+	public void doIndexQueryOp(String type, Query query, Filter filter, 
+			boolean synchronous, IndexQueryOp queryOp) {
+		doIndexQueryOp(type, query, filter, synchronous, null, null, queryOp);
+	}
+	
+	@Override
+	public void doIndexQueryOp(String type, Query query, Filter filter, 
+			boolean synchronous, QueryControl control, IndexQueryOp queryOp) {
+		doIndexQueryOp(type, query, filter, synchronous, null, control, queryOp);
+	}
+	
+	private void doIndexQueryOp(final String type, final Query query, 
+			final Filter filter, final boolean synchronous, 
+			final SearchExecution exec, final QueryControl control, 
+			final IndexQueryOp queryOp ) {
 		if ( query == null ) {
 			return;
 		}
@@ -1119,16 +2360,20 @@ public class LuceneSearchService implements LuceneService {
 			LuceneIndexStatusCallback callback = new LuceneIndexStatusCallback() {
 				@Override
 				public void go() {
-					executeIndexSearcherOp(type, query, queryOp, data);
+					executeIndexSearcherOp(type, query, filter, queryOp, data, exec, control);
 				}
 			};
 			IndexQueueThreadCommand command = new IndexQueueThreadCommand(
 					ZERO, type, IndexQueueThreadCommand.Operation.CALLBACK, true);
 			command.statusCallback = callback;
 			indexQueue.enqueue(command);
-			callback.waitUntilDone();
+			if ( control == null ) {
+				callback.waitUntilDone();
+			} else {
+				callback.waitUntilDone(control);
+			}
 		} else {
-			executeIndexSearcherOp(type, query, queryOp, data);
+			executeIndexSearcherOp(type, query, filter, queryOp, data, exec, control);
 		}
 	}
 
@@ -1148,8 +2393,9 @@ public class LuceneSearchService implements LuceneService {
 		}
 	}
 
-	private void executeIndexSearcherOp(String type, Query query, 
-			IndexQueryOp queryOp, IndexData data) {
+	private void executeIndexSearcherOp(String type, Query query, Filter filter, 
+			IndexQueryOp queryOp, IndexData data, SearchExecution exec, 
+			QueryControl control) {
 		IndexSearcher searcher = null;
 		AtomicInteger readerCount = data.readerCount;
 		readerCount.incrementAndGet();
@@ -1157,9 +2403,23 @@ public class LuceneSearchService implements LuceneService {
 		try {
 			searcher = getIndexSearcher(data);
 			long start = System.currentTimeMillis();
-			// TODO instead of DEFAULT_MAX_SEARCH_RESULTS make configurable property, or method arg
-			TopDocCollector col = new TopDocCollector(DEFAULT_MAX_SEARCH_RESULTS);
-			searcher.search(query, col);
+			TopDocCollector col;
+			FacetCollector facets = null;
+			if ( exec == null ) {
+				// TODO instead of DEFAULT_MAX_SEARCH_RESULTS make configurable property, or method arg
+				col = new TopDocCollector(DEFAULT_MAX_SEARCH_RESULTS);
+				search(type, searcher, query, filter, col, control);
+			} else {
+				col = exec.createCollector(type, searcher.getIndexReader());
+				if ( exec.facetFields != null ) {
+					facets = new FacetCollector(searcher.getIndexReader(), 
+							exec.facetFields, col);
+					search(type, searcher, query, filter, facets, control);
+					exec.facetCounts = facets.getFacetCounts(exec.maxFacetValues);
+				} else {
+					search(type, searcher, query, filter, col, control);
+				}
+			}
 			long time = System.currentTimeMillis() - start;
 			if ( log.isDebugEnabled() ) {
 				log.debug("Lucene query [" +query
@@ -1171,6 +2431,8 @@ public class LuceneSearchService implements LuceneService {
 			}
 		
 			queryOp.doSearcherOp(type, searcher, query, col);
+		} catch ( SearchCursorExpiredException e ) {
+			throw e;
 		} catch ( Exception e ) {
 			log.error("Lucene exception during search on [" +type +"]", e);
 			throw new RuntimeException("Exception searching index [" +type +"]", e);
@@ -1179,12 +2441,72 @@ public class LuceneSearchService implements LuceneService {
 		}
 	}
 	
+	/**
+	 * Get the QueryControl to use for a search.
+	 * @param control the control passed by the caller, or <em>null</em>
+	 * @return <code>control</code> if not <em>null</em>, otherwise a new
+	 * control for the <code>defaultQueryTimeoutMs</code> time budget, or
+	 * <em>null</em> if there is no default time budget
+	 */
+	private QueryControl queryControl(QueryControl control) {
+		if ( control == null && defaultQueryTimeoutMs > 0 ) {
+			return new QueryControl(defaultQueryTimeoutMs);
+		}
+		return control;
+	}
+	
+	/**
+	 * Search with a HitCollector, stopping early if the query's time budget
+	 * is used up or it is cancelled.
+	 * 
+	 * <p>When stopped early the collector holds the hits collected so far
+	 * and the QueryControl is flagged as having partial results.</p>
+	 * 
+	 * @param type the index type
+	 * @param searcher the searcher
+	 * @param query the query
+	 * @param filter the filter, or <em>null</em>
+	 * @param collector the collector
+	 * @param control the query control, or <em>null</em> for no limits
+	 * @throws IOException if an IO error occurs
+	 */
+	private void search(String type, IndexSearcher searcher, Query query, Filter filter, 
+			HitCollector collector, QueryControl control) throws IOException {
+		if ( control == null ) {
+			searcher.search(query, filter, collector);
+			return;
+		}
+		long remaining = control.getRemainingMs();
+		if ( control.isCancelled() || remaining <= 0 ) {
+			control.setPartialResults();
+			return;
+		}
+		HitCollector c = new CancellableCollector(collector, control);
+		if ( remaining != Long.MAX_VALUE ) {
+			c = new TimeLimitedCollector(c, remaining);
+		}
+		try {
+			searcher.search(query, filter, c);
+		} catch ( TimeLimitedCollector.TimeExceededException e ) {
+			control.setPartialResults();
+			if ( log.isInfoEnabled() ) {
+				log.info("Lucene query [" +query +"] on index [" +type 
+						+"] stopped after " +e.getTimeElapsed() +"ms time limit");
+			}
+		} catch ( QueryCancelledException e ) {
+			control.setPartialResults();
+			if ( log.isDebugEnabled() ) {
+				log.debug("Lucene query [" +query +"] on index [" +type +"] cancelled");
+			}
+		}
+	}
+	
 	@Override
 	public void doIndexUpdateOp(String type, IndexReaderOp readerOp, boolean create, 
 			boolean optimize, boolean optimizeOnFinish, IndexWriterOp writeOp) {
 		IndexData data = getIndexData(type);
 		IndexReader reader = null;
-		IndexWriter writer = null;
+		FlushCountingIndexWriter writer = null;
 		Lock lock = data.writeLock;
 		lock.lock();
 		try {
@@ -1201,22 +2523,8 @@ public class LuceneSearchService implements LuceneService {
 				reader = null;
 			}
 
-			// perform update op
-			writer = new IndexWriter(data.dir,
-					data.plugin.getAnalyzer(), create, MaxFieldLength.UNLIMITED);
-			if ( traceLog.isInfoEnabled() ) {
-				traceLog.info(TraceOp.CONCURRENCY +"Created new IndexWriter " 
-						+writer +" for index [" +type +"]");
-			}
-			writer.setUseCompoundFile(true); // to minimize the number of files kept open
-			if ( optimizeOnFinish ) {
-				// treat as batch
-				writer.setMaxBufferedDocs(this.batchMinMergeDocs);
-				writer.setMergeFactor(this.batchMergeFactor);
-			} else {
-				writer.setMaxBufferedDocs(data.config.getMinMergeDocs());
-				writer.setMergeFactor(data.config.getMergeFactor());
-			}
+			// perform update op, treated as batch if optimizeOnFinish
+			writer = createIndexWriter(data, create, optimizeOnFinish);
 			writeOp.doWriterOp(type, writer);
 			if ( optimize && !optimizeOnFinish && optimizeTriggerCount > 0 ) {
 				data.updateCount++;
@@ -1236,6 +2544,7 @@ public class LuceneSearchService implements LuceneService {
 					+type +"]", e);	
 		} finally {
 			if ( writer != null ) {
+				writer.recordClosingFlush();
 				if ( optimizeOnFinish ) {
 					try {
 						optimizeIndex(data, writer);
@@ -1256,13 +2565,33 @@ public class LuceneSearchService implements LuceneService {
 				}
 			}
 			
-			discardIndexReader(data);
+			expireIndexReader(data);
 			lock.unlock();
+			refreshIndexSearcher(data);
+		}
+	}
+
+	/**
+	 * Mark the current IndexReader of an index as out of date after the 
+	 * index has been updated.
+	 * 
+	 * <p>The current IndexSearcher keeps serving searches until it is 
+	 * replaced by {@link #refreshIndexSearcher(IndexData)} or the next 
+	 * search.</p>
+	 * 
+	 * @param data the index data
+	 */
+	private void expireIndexReader(IndexData data) {
+		synchronized ( data.dir ) {
+			data.readerGeneration++;
+			data.stale = (data.searcher != null);
 		}
 	}
 
 	private void discardIndexReader(IndexData data) {
 		synchronized ( data.dir ) {
+			data.readerGeneration++;
+			data.stale = false;
 			if ( data.reader != null ) {
 				// move IndexReader over to discarded buffer, for closing later
 				DiscardedIndexReader discardedReader = new DiscardedIndexReader(
@@ -1277,6 +2606,10 @@ public class LuceneSearchService implements LuceneService {
 				data.reader = null;
 				data.readerCount = new AtomicInteger(0);
 				data.searcher = null;
+				data.matchCache = null;
+				for ( CachedQueryFilter filter : data.filters.values() ) {
+					filter.clear();
+				}
 			}
 		}
 	}
@@ -1309,25 +2642,12 @@ public class LuceneSearchService implements LuceneService {
 	public void doIndexWriterOp(String type, boolean create, boolean optimize, 
 			boolean optimizeOnFinish, IndexWriterOp writeOp) {
 		IndexData data = getIndexData(type);
-		IndexWriter writer = null;
+		FlushCountingIndexWriter writer = null;
 		Lock lock = data.writeLock;
 		lock.lock();
 		try {
-			writer = new IndexWriter(data.dir,
-					data.plugin.getAnalyzer(), create, MaxFieldLength.UNLIMITED);
-			if ( traceLog.isInfoEnabled() ) {
-				traceLog.info(TraceOp.CONCURRENCY +"Created new IndexWriter " 
-						+writer +" for index [" +type +"]");
-			}
-			writer.setUseCompoundFile(true); // to minimize the number of files kept open
-			if ( optimizeOnFinish ) {
-				// treat as batch
-				writer.setMaxBufferedDocs(this.batchMinMergeDocs);
-				writer.setMergeFactor(this.batchMergeFactor);
-			} else {
-				writer.setMaxBufferedDocs(data.config.getMinMergeDocs());
-				writer.setMergeFactor(data.config.getMergeFactor());
-			}
+			// treat as batch if optimizeOnFinish
+			writer = createIndexWriter(data, create, optimizeOnFinish);
 			writeOp.doWriterOp(type, writer);
 			if ( optimize && !optimizeOnFinish && optimizeTriggerCount > 0 ) {
 				data.updateCount++;
@@ -1348,6 +2668,7 @@ public class LuceneSearchService implements LuceneService {
 					+type +",create=" +create +"]", e);	
 		} finally {
 			if ( writer != null ) {
+				writer.recordClosingFlush();
 				if ( optimizeOnFinish ) {
 					try {
 						optimizeIndex(data, writer);
@@ -1367,8 +2688,9 @@ public class LuceneSearchService implements LuceneService {
 					traceLog.warn(TraceOp.ERROR +"Unable to close Lucene index writer", e);
 				}
 			}
-			discardIndexReader(data);
+			expireIndexReader(data);
 			lock.unlock();
+			refreshIndexSearcher(data);
 		}
 	}
 	
@@ -1404,29 +2726,68 @@ public class LuceneSearchService implements LuceneService {
 		return results;
 	}
 	
+	@Override
+	public List<String> suggest(String index, String field, String prefix, 
+			int maxResults) {
+		IndexData data = getIndexData(index);
+		TermSuggester.Cache cache = getTermSuggester(data, field);
+		if ( cache == null ) {
+			throw new IllegalArgumentException("Field [" +field 
+					+"] is not configured for suggestions on index [" +index +"]");
+		}
+		TermSuggester suggester = cache.get();
+		if ( suggester == null ) {
+			// not built by a searcher warm-up yet, so build now; later 
+			// rebuilds are done in the background by TermIndexRebuildTask
+			AtomicInteger readerCount = data.readerCount;
+			readerCount.incrementAndGet();
+			try {
+				suggester = cache.update(getIndexReader(data, SHARED));
+			} catch ( IOException e ) {
+				throw new RuntimeException("Unable to build suggestions on index [" 
+						+index +"] for field [" +field +"]", e);
+			} finally {
+				readerCount.decrementAndGet();
+			}
+		}
+		data.queryCount.incrementAndGet();
+		return suggester.suggest(prefix == null ? "" : prefix, maxResults);
+	}
+	
+	/**
+	 * Get the suggestion cache for a field, if the index is configured
+	 * to keep one.
+	 * 
+	 * @param data the index data
+	 * @param field the field
+	 * @return the cache, or <em>null</em> if not configured for the field
+	 */
+	private TermSuggester.Cache getTermSuggester(IndexData data, String field) {
+		if ( data.config == null ) {
+			return null;
+		}
+		List<String> fields = data.extendedConfig.getSuggestFields();
+		if ( fields == null || !fields.contains(field) ) {
+			return null;
+		}
+		TermSuggester.Cache cache = data.suggesters.get(field);
+		if ( cache == null ) {
+			cache = new TermSuggester.Cache(field);
+			TermSuggester.Cache existing = data.suggesters.putIfAbsent(field, cache);
+			if ( existing != null ) {
+				cache = existing;
+			}
+		}
+		return cache;
+	}
+	
 	private IndexReader getIndexReader(IndexData data, boolean shared) {
 		if ( shared ) {
-			synchronized ( data.dir ) {
-				if ( data.reader == null ) {
-					if ( data.reader != null && traceLog.isInfoEnabled() ) {
-						traceLog.info(TraceOp.CONCURRENCY +"Replacing IndexReader "
-								+data.reader +" [" +data.type +"]");
-					}
-					try {
-						data.reader = IndexReader.open(data.dir);
-					} catch (IOException e) {
-						throw new RuntimeException(e);
-					}
-					if ( traceLog.isInfoEnabled() ) {
-						traceLog.info(TraceOp.CONCURRENCY +"Cached new IndexReader " 
-								+data.reader +" [" +data.type +"]");
-					}
-				}
-				return data.reader;
-			}
+			// the shared reader is always the one behind the current IndexSearcher
+			return getIndexSearcher(data).getIndexReader();
 		}
 		try {
-			IndexReader reader = IndexReader.open(data.dir);
+			IndexReader reader = IndexReader.open(data.dir, data.deletionPolicy);
 			if ( traceLog.isInfoEnabled() ) {
 				traceLog.info(TraceOp.CONCURRENCY +"Created non-cached IndexReader " 
 						+reader +" [" +data.type +"]");
@@ -1452,23 +2813,274 @@ public class LuceneSearchService implements LuceneService {
 		}
 	}
 
+	/**
+	 * Get the current IndexSearcher for an index.
+	 * 
+	 * <p>If the index has been updated since the current searcher was opened, 
+	 * the current searcher is returned as long as another thread is already 
+	 * opening its replacement. Otherwise a new searcher is opened and warmed 
+	 * up by the calling thread.</p>
+	 * 
+	 * @param data the index data
+	 * @return the searcher
+	 */
 	private IndexSearcher getIndexSearcher(IndexData data) {
 		synchronized ( data.dir ) {
-			if ( data.searcher == null ) {
-				IndexReader reader = getIndexReader(data, SHARED);
-				if ( data.searcher != null && traceLog.isInfoEnabled() ) {
+			if ( data.searcher != null && (!data.stale || data.refreshLock.isLocked()) ) {
+				return data.searcher;
+			}
+		}
+		data.refreshLock.lock();
+		try {
+			synchronized ( data.dir ) {
+				if ( data.searcher != null && !data.stale ) {
+					return data.searcher;
+				}
+			}
+			return openIndexSearcher(data);
+		} finally {
+			data.refreshLock.unlock();
+		}
+	}
+	
+	/**
+	 * Open and warm up a new IndexSearcher, and then make it the current 
+	 * searcher of the index.
+	 * 
+	 * <p>The searcher is opened and warmed up without holding the index 
+	 * directory lock, so the previous searcher keeps serving searches until 
+	 * the new one replaces it. The previous IndexReader is then moved to 
+	 * the discarded readers, to be closed once no searches are using it. 
+	 * The caller must hold {@link IndexData#refreshLock}.</p>
+	 * 
+	 * @param data the index data
+	 * @return the new searcher
+	 */
+	private IndexSearcher openIndexSearcher(IndexData data) {
+		long generation;
+		synchronized ( data.dir ) {
+			generation = data.readerGeneration;
+		}
+		IndexReader reader;
+		try {
+			reader = IndexReader.open(data.dir, data.deletionPolicy);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		IndexSearcher searcher = new IndexSearcher(reader);
+		warmIndexSearcher(data, searcher);
+		synchronized ( data.dir ) {
+			if ( data.reader != null ) {
+				DiscardedIndexReader discardedReader = new DiscardedIndexReader(
+						data.readerCount, data.reader, data.type);
+				this.discardedIndexReaders.add(discardedReader);
+				if ( traceLog.isInfoEnabled() ) {
 					traceLog.info(TraceOp.CONCURRENCY +"Replacing IndexSearcher "
 							+data.searcher +" for index [" +data.type +"]");
 				}
-				data.searcher = new IndexSearcher(reader);
-				if ( traceLog.isInfoEnabled() ) {
-					traceLog.info(TraceOp.CONCURRENCY 
-							+"Cached new IndexSearcher " +data.searcher 
-							+" for index [" +data.type +"]");
+				data.readerCount = new AtomicInteger(0);
+			}
+			data.reader = reader;
+			data.searcher = searcher;
+			
+			// if the index changed again while warming up, the next search refreshes
+			data.stale = (generation != data.readerGeneration);
+			data.matchCache = (this.searchMatchCacheSize > 0 
+					? new SearchMatchCache(reader.getVersion(), this.searchMatchCacheSize)
+					: null);
+		}
+		if ( traceLog.isInfoEnabled() ) {
+			traceLog.info(TraceOp.CONCURRENCY +"Cached new IndexSearcher " +searcher 
+					+" for index [" +data.type +"]");
+		}
+		return searcher;
+	}
+	
+	/**
+	 * Run the configured warm-up queries, FieldCache loads and term index 
+	 * builds against a new IndexSearcher, before it is made available for 
+	 * searches.
+	 * 
+	 * <p>Errors are logged but otherwise ignored, as a searcher that failed 
+	 * to warm up is still usable.</p>
+	 * 
+	 * @param data the index data
+	 * @param searcher the new searcher
+	 */
+	private void warmIndexSearcher(IndexData data, IndexSearcher searcher) {
+		if ( !isWarmUpConfigured(data) ) {
+			return;
+		}
+		long start = System.currentTimeMillis();
+		IndexReader reader = searcher.getIndexReader();
+		List<String> sortFields = data.extendedConfig.getWarmUpSortFields();
+		if ( sortFields != null ) {
+			for ( String field : sortFields ) {
+				try {
+					FieldCache.DEFAULT.getStringIndex(reader, field);
+				} catch ( Exception e ) {
+					log.warn("Unable to warm up FieldCache for field [" +field 
+							+"] on index [" +data.type +"]", e);
+				}
+			}
+		}
+		List<String> fuzzyFields = data.extendedConfig.getFuzzyTermIndexFields();
+		if ( fuzzyFields != null ) {
+			for ( String field : fuzzyFields ) {
+				try {
+					// after the first build, TermIndexRebuildTask rebuilds in the background
+					FuzzyTermIndex.Cache cache = getFuzzyTermIndex(data, field);
+					if ( cache.get() == null ) {
+						cache.update(reader);
+					}
+				} catch ( Exception e ) {
+					log.warn("Unable to warm up fuzzy term index for field [" +field 
+							+"] on index [" +data.type +"]", e);
+				}
+			}
+		}
+		List<String> suggestFields = data.extendedConfig.getSuggestFields();
+		if ( suggestFields != null ) {
+			for ( String field : suggestFields ) {
+				try {
+					TermSuggester.Cache cache = getTermSuggester(data, field);
+					if ( cache.get() == null ) {
+						cache.update(reader);
+					}
+				} catch ( Exception e ) {
+					log.warn("Unable to rebuild suggestions for field [" +field 
+							+"] on index [" +data.type +"]", e);
+				}
+			}
+		}
+		List<String> queries = data.extendedConfig.getWarmUpQueries();
+		if ( queries != null ) {
+			for ( String query : queries ) {
+				try {
+					searcher.search(parseQuery(data.type, query), null, 
+							WARM_UP_QUERY_MAX_RESULTS);
+				} catch ( Exception e ) {
+					log.warn("Unable to run warm-up query [" +query 
+							+"] on index [" +data.type +"]", e);
+				}
+			}
+		}
+		data.lastWarmUpMs = System.currentTimeMillis() - start;
+		if ( traceLog.isInfoEnabled() ) {
+			traceLog.info(TraceOp.CONCURRENCY +"Warmed up IndexSearcher " +searcher
+					+" for index [" +data.type +"] in " +data.lastWarmUpMs +"ms");
+		}
+	}
+	
+	private boolean isWarmUpConfigured(IndexData data) {
+		if ( data.config == null ) {
+			return false;
+		}
+		List<String> queries = data.extendedConfig.getWarmUpQueries();
+		List<String> sortFields = data.extendedConfig.getWarmUpSortFields();
+		List<String> fuzzyFields = data.extendedConfig.getFuzzyTermIndexFields();
+		List<String> suggestFields = data.extendedConfig.getSuggestFields();
+		return (queries != null && !queries.isEmpty()) 
+			|| (sortFields != null && !sortFields.isEmpty())
+			|| (fuzzyFields != null && !fuzzyFields.isEmpty())
+			|| (suggestFields != null && !suggestFields.isEmpty());
+	}
+	
+	/**
+	 * Open and warm up a new IndexSearcher for an index if warm-up is 
+	 * configured, so the next search does not have to.
+	 * 
+	 * <p>This is called after an index update has expired the current
+	 * IndexSearcher, on the thread that performed the update. Searches 
+	 * keep using the expired searcher until the new one is ready.</p>
+	 * 
+	 * @param data the index data
+	 */
+	private void refreshIndexSearcher(IndexData data) {
+		if ( !isWarmUpConfigured(data) ) {
+			return;
+		}
+		data.refreshLock.lock();
+		try {
+			synchronized ( data.dir ) {
+				if ( data.searcher != null && !data.stale ) {
+					return;
+				}
+			}
+			openIndexSearcher(data);
+		} catch ( RuntimeException e ) {
+			log.warn("Unable to open IndexSearcher for index [" +data.type +"]", e);
+		} finally {
+			data.refreshLock.unlock();
+		}
+	}
+
+	/**
+	 * Rebuild the fuzzy term indexes and suggesters of an index from its 
+	 * current IndexSearcher, if they were built from an older one.
+	 * 
+	 * <p>Queries and suggestions keep using the previous term indexes 
+	 * until each new one is built. Nothing is done while the current searcher is being 
+	 * replaced, as the new one will need its own term indexes.</p>
+	 * 
+	 * @param data the index data
+	 */
+	private void rebuildTermIndexes(IndexData data) {
+		IndexReader reader;
+		AtomicInteger readerCount;
+		synchronized ( data.dir ) {
+			if ( data.searcher == null || data.stale ) {
+				return;
+			}
+			reader = data.reader;
+			readerCount = data.readerCount;
+			readerCount.incrementAndGet();
+		}
+		try {
+			List<String> fuzzyFields = data.extendedConfig.getFuzzyTermIndexFields();
+			if ( fuzzyFields != null ) {
+				for ( String field : fuzzyFields ) {
+					try {
+						getFuzzyTermIndex(data, field).update(reader);
+					} catch ( Exception e ) {
+						log.warn("Unable to rebuild fuzzy term index for field [" +field 
+								+"] on index [" +data.type +"]", e);
+					}
+				}
+			}
+			List<String> suggestFields = data.extendedConfig.getSuggestFields();
+			if ( suggestFields != null ) {
+				for ( String field : suggestFields ) {
+					try {
+						getTermSuggester(data, field).update(reader);
+					} catch ( Exception e ) {
+						log.warn("Unable to rebuild suggestions for field [" +field 
+								+"] on index [" +data.type +"]", e);
+					}
 				}
 			}
-			return data.searcher;
+		} finally {
+			readerCount.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Get the SearchMatchCache for an IndexSearcher.
+	 * 
+	 * @param data the index data
+	 * @param searcher the searcher the cached matches must come from
+	 * @return the cache, or <em>null</em> if caching is disabled or the 
+	 * searcher is no longer the current one
+	 */
+	private SearchMatchCache getSearchMatchCache(IndexData data, IndexSearcher searcher) {
+		SearchMatchCache cache;
+		synchronized ( data.dir ) {
+			cache = data.matchCache;
+		}
+		if ( cache == null || cache.readerVersion != searcher.getIndexReader().getVersion() ) {
+			return null;
 		}
+		return cache;
 	}
 
 	@Override
@@ -1476,13 +3088,26 @@ public class LuceneSearchService implements LuceneService {
 		this.indexEventListeners.add(listener);
 	}
 
+	@Override
+	public synchronized void addIndexEventListener(IndexListener listener, 
+			boolean asynchronous) {
+		if ( asynchronous ) {
+			this.indexEventListeners.add(new AsyncIndexListener(listener, 
+					this.indexEventQueueSize));
+		} else {
+			this.indexEventListeners.add(listener);
+		}
+	}
+
 	@Override
 	public synchronized void removeIndexEventListener(IndexListener listener) {
-		if ( this.indexEventListeners == null ) return;
-		for ( Iterator<IndexListener> itr = this.indexEventListeners.iterator(); itr.hasNext(); ) {
-			IndexListener oneListener = itr.next();
+		for ( IndexListener oneListener : this.indexEventListeners ) {
 			if ( listener.equals(oneListener) ) {
-				itr.remove();
+				this.indexEventListeners.remove(oneListener);
+			} else if ( oneListener instanceof AsyncIndexListener 
+					&& listener.equals(((AsyncIndexListener)oneListener).getDelegate()) ) {
+				this.indexEventListeners.remove(oneListener);
+				((AsyncIndexListener)oneListener).shutdown(0);
 			}
 		}
 	}
@@ -1507,6 +3132,18 @@ public class LuceneSearchService implements LuceneService {
 		return monthDateFormat.format(date, zone);
 	}
 
+	@Override
+	public void addDateField(Document doc, String field, Date date) {
+		TrieUtils.addLongField(doc, field, date.getTime(), this.trieDatePrecisionStep);
+	}
+
+	@Override
+	public Query dateRangeQuery(String field, Date from, Date to) {
+		return TrieUtils.newLongRangeQuery(field, this.trieDatePrecisionStep, 
+				from == null ? null : from.getTime(), 
+				to == null ? null : to.getTime(), true, true);
+	}
+
 	@Override
 	public Date parseDate(String dateStr, TimeZone zone) {
 		Calendar result = null;
@@ -1607,22 +3244,209 @@ public class LuceneSearchService implements LuceneService {
 	}
 	
 	/**
-	 * Timer task to periodically flush index queues.
+	 * Base for periodic tasks run on the shared scheduler.
+	 * 
+	 * <p>Each run schedules the next one when it finishes, so runs of one
+	 * task never overlap or pile up behind a slow run. Exceptions are 
+	 * logged and the task keeps running. The lag between when each run was
+	 * due and when it started is tracked, as a measure of how overloaded
+	 * the scheduler is.</p>
 	 */
-	private class IndexQueueFlushTask extends TimerTask {
+	private abstract class ScheduledTask implements Runnable {
+		private final String name;
+		private volatile long delayMs = 0;
+		private volatile long scheduledTime = 0;
+		private volatile long runCount = 0;
+		private volatile long failureCount = 0;
+		private volatile long lastLagMs = 0;
+		private volatile long maxLagMs = 0;
+		private volatile long totalLagMs = 0;
+		
+		private ScheduledTask(String name) {
+			this.name = name;
+		}
+		
+		/**
+		 * Perform the task.
+		 * @return the number of milliseconds until the next run, or 
+		 * <code>0</code> to stop running
+		 */
+		protected abstract long runTask();
+		
+		private void schedule(long delay) {
+			ScheduledExecutorService executor = scheduler;
+			if ( executor == null ) {
+				return;
+			}
+			delayMs = delay;
+			scheduledTime = System.currentTimeMillis() + delay;
+			try {
+				executor.schedule(this, delay, TimeUnit.MILLISECONDS);
+			} catch ( RejectedExecutionException e ) {
+				// scheduler shut down
+			}
+		}
+		
 		@Override
-		public void run() {
-			indexQueue.flush();
+		public final void run() {
+			long lag = Math.max(0, System.currentTimeMillis() - scheduledTime);
+			lastLagMs = lag;
+			totalLagMs += lag;
+			if ( lag > maxLagMs ) {
+				maxLagMs = lag;
+			}
+			runCount++;
+			long next = delayMs;
+			try {
+				next = runTask();
+			} catch ( Throwable t ) {
+				failureCount++;
+				log.error("Exception running scheduled task [" +name +"]", t);
+			}
+			if ( next > 0 ) {
+				schedule(next);
+			}
+		}
+		
+		@Override
+		public String toString() {
+			long runs = runCount;
+			return name +" every " +delayMs +"ms: " +runs +" runs, " +failureCount 
+				+" failures, lag ms last " +lastLagMs +" avg " 
+				+(runs > 0 ? totalLagMs / runs : 0) +" max " +maxLagMs;
 		}
 	}
 	
-	/**
-	 * Timer task to periodically close discarded IndexReader objects.
-	 */
-	private class CloseDiscardedIndexReaderTask extends TimerTask {
+	private void startScheduledTask(ScheduledTask task, long initialDelayMs) {
+		synchronized ( scheduledTasks ) {
+			scheduledTasks.add(task);
+		}
+		task.schedule(initialDelayMs);
+	}
+	
+	/**
+	 * Task to periodically flush one index's queue, adjusting the interval
+	 * to the number of updates waiting.
+	 */
+	private class IndexQueueFlushTask extends ScheduledTask {
+		private final String type;
+		private long intervalMs = updateBufferFlushMs;
+		
+		private IndexQueueFlushTask(String type) {
+			super("Flush [" +type +"]");
+			this.type = type;
+		}
+		
 		@Override
-		public void run() {
+		protected long runTask() {
+			IndexQueueThread queue = indexQueue;
+			if ( queue == null ) {
+				return 0;
+			}
+			int depth = queue.getBufferedCount(type);
+			if ( depth > 0 ) {
+				if ( lazyIndexes.containsKey(type) ) {
+					openLazyIndexInBackground(type);
+				} else {
+					queue.flush(type);
+				}
+			}
+			if ( depth > 0 && depth >= updateBufferSize / 2 ) {
+				if ( updateBufferFlushMinMs > 0 ) {
+					intervalMs = Math.max(Math.min(updateBufferFlushMinMs, updateBufferFlushMs), 
+							intervalMs / 2);
+				}
+			} else if ( depth == 0 ) {
+				if ( updateBufferFlushMaxMs > 0 ) {
+					intervalMs = Math.min(Math.max(updateBufferFlushMaxMs, updateBufferFlushMs), 
+							intervalMs * 2);
+				}
+			}
+			return intervalMs;
+		}
+	}
+	
+	/**
+	 * Task to periodically close discarded IndexReader objects.
+	 */
+	private class CloseDiscardedIndexReaderTask extends ScheduledTask {
+		private CloseDiscardedIndexReaderTask() {
+			super("Close discarded IndexReaders");
+		}
+		
+		@Override
+		protected long runTask() {
 			processDiscardedIndexReaders();
+			return discardedIndexReaderProcessorMs;
+		}
+	}
+	
+	/**
+	 * Task to periodically start a rebuild of one index's term indexes on 
+	 * the <code>termIndexExecutor</code>, so a long rebuild does not hold up
+	 * other scheduled tasks. A rebuild is not started while the previous
+	 * one is still queued or running. Stops if the index has none configured.
+	 */
+	private class TermIndexRebuildTask extends ScheduledTask {
+		private final String type;
+		
+		private TermIndexRebuildTask(String type) {
+			super("Rebuild term indexes [" +type +"]");
+			this.type = type;
+		}
+		
+		@Override
+		protected long runTask() {
+			final IndexData data = indexDataMap.get(type);
+			if ( data == null || data.config == null || lazyIndexes.containsKey(type) ) {
+				// not set up yet
+				return termIndexRebuildMs;
+			}
+			List<String> fuzzyFields = data.extendedConfig.getFuzzyTermIndexFields();
+			List<String> suggestFields = data.extendedConfig.getSuggestFields();
+			if ( (fuzzyFields == null || fuzzyFields.isEmpty())
+					&& (suggestFields == null || suggestFields.isEmpty()) ) {
+				return 0;
+			}
+			ExecutorService executor = termIndexExecutor;
+			if ( executor == null ) {
+				return 0;
+			}
+			if ( data.termIndexRebuildQueued.compareAndSet(false, true) ) {
+				try {
+					executor.execute(new Runnable() {
+						@Override
+						public void run() {
+							try {
+								rebuildTermIndexes(data);
+							} finally {
+								data.termIndexRebuildQueued.set(false);
+							}
+						}
+					});
+				} catch ( RejectedExecutionException e ) {
+					// shutting down
+					data.termIndexRebuildQueued.set(false);
+					return 0;
+				}
+			}
+			return termIndexRebuildMs;
+		}
+	}
+	
+	/**
+	 * Task to periodically publish or copy index commit points, 
+	 * depending on the replication mode.
+	 */
+	private class ReplicationTask extends ScheduledTask {
+		private ReplicationTask() {
+			super("Replication");
+		}
+		
+		@Override
+		protected long runTask() {
+			replicateIndexes();
+			return replicationIntervalMs;
 		}
 	}
 	
@@ -1750,6 +3574,12 @@ public class LuceneSearchService implements LuceneService {
 					Queue<IndexQueueThreadCommand> queue = bufferMap.get(command.type);
 					queue.add(command);
 					
+					if ( !command.callingThread && lazyIndexes.containsKey(command.type) ) {
+						// leave buffered until the index is set up
+						openLazyIndexInBackground(command.type);
+						return;
+					}
+					
 					// the following test tests for simple case first because calls 
 					// to ConcurrentLinkedQueue.size() are not linear so we try to avoid that
 					if ( command.callingThread || updateBufferSize < 2 || bufferMap.get(command.type).size() 
@@ -1785,6 +3615,9 @@ public class LuceneSearchService implements LuceneService {
 			}
 			final Map<Object, IndexQueueThreadCommand> toUpdate 
 				= new LinkedHashMap<Object, IndexQueueThreadCommand>();
+			
+			// collect events to publish after the index locks have been released
+			final List<IndexEvent> events = new ArrayList<IndexEvent>();
 
 			doIndexReaderOp(indexType, new IndexReaderOp() {
 
@@ -1802,9 +3635,7 @@ public class LuceneSearchService implements LuceneService {
 							toUpdate.put(itemId, command);
 						} else {
 							handleDelete(type, reader, command);
-							LuceneServiceUtils.publishIndexEvent(
-									new IndexEvent(command.item, EventType.DELETE, type), 
-									indexEventListeners);
+							events.add(new IndexEvent(command.item, EventType.DELETE, type));
 						}
 					}
 				}
@@ -1833,9 +3664,7 @@ public class LuceneSearchService implements LuceneService {
 								} else {
 									indexData.plugin.indexObject(command.item, writer);
 								}
-								LuceneServiceUtils.publishIndexEvent(
-										new IndexEvent(command.item, EventType.UPDATE, type), 
-										indexEventListeners);
+								events.add(new IndexEvent(command.item, EventType.UPDATE, type));
 							} catch ( ObjectRetrievalFailureException e ) {
 								log.warn("Unable to load object type [" +command.type +"] by key ["
 										+command.item +"] for indexing");
@@ -1844,6 +3673,8 @@ public class LuceneSearchService implements LuceneService {
 					}
 				});
 			}
+			
+			LuceneServiceUtils.publishIndexEvents(events, indexEventListeners);
 		}
 		
 		@Override
@@ -1869,6 +3700,11 @@ public class LuceneSearchService implements LuceneService {
 			}
 		}
 		
+		private int getBufferedCount(String type) {
+			Queue<IndexQueueThreadCommand> queue = bufferMap.get(type);
+			return (queue == null ? 0 : queue.size());
+		}
+		
 		private void flush(String type) {
 			if ( log.isDebugEnabled() ) {
 				log.debug("Flushing index update buffer [" +type +"]");
@@ -1909,6 +3745,7 @@ public class LuceneSearchService implements LuceneService {
 		private String type;
 		private LucenePlugin plugin;
 		private LucenePlugin.LuceneIndexConfig config;
+		private LucenePlugin.ExtendedIndexConfig extendedConfig;
 		private IndexSearcher searcher;
 		private IndexReader reader;
 		private Directory dir;
@@ -1916,6 +3753,30 @@ public class LuceneSearchService implements LuceneService {
 		private final AtomicInteger queryCount; // may need to use AtomicLong?
 		private AtomicInteger readerCount;
 		private final Lock writeLock;
+		private final Lock backupLock = new ReentrantLock();
+		private final SnapshotDeletionPolicy deletionPolicy 
+			= new SnapshotDeletionPolicy(new KeepOnlyLastCommitDeletionPolicy());
+		private volatile boolean deletionPolicyInitialized = false;
+		private volatile long replicationVersion = -1;
+		private volatile Set<String> replicationFileNames = null;
+		private SearchMatchCache matchCache;
+		private boolean stale = false;
+		private long readerGeneration = 0;
+		private final ReentrantLock refreshLock = new ReentrantLock();
+		private long lastWarmUpMs = -1;
+		private long verifyTimeMs = -1;
+		private volatile String verifyStatus = null;
+		private volatile boolean rebuildPending = false;
+		private final AtomicBoolean termIndexRebuildQueued = new AtomicBoolean(false);
+		private final AtomicLong flushCount = new AtomicLong(0);
+		private final AtomicLong flushedDocCount = new AtomicLong(0);
+		private final AtomicLong flushedBytes = new AtomicLong(0);
+		private final ConcurrentMap<String, CachedQueryFilter> filters 
+			= new ConcurrentHashMap<String, CachedQueryFilter>();
+		private final ConcurrentMap<String, FuzzyTermIndex.Cache> fuzzyTermIndexes
+			= new ConcurrentHashMap<String, FuzzyTermIndex.Cache>();
+		private final ConcurrentMap<String, TermSuggester.Cache> suggesters
+			= new ConcurrentHashMap<String, TermSuggester.Cache>();
 
 		private IndexData() {
 			this(null, null, null);
@@ -1932,139 +3793,1056 @@ public class LuceneSearchService implements LuceneService {
 		}
 	}
 	
-	private static final class DiscardedIndexReader {
-		private DiscardedIndexReader(AtomicInteger readerCount, IndexReader reader, 
-				String indexType) {
-			this.discardTime = System.currentTimeMillis();
-			this.readerCount = readerCount;
-			this.reader = reader;
-			this.indexType = indexType;
-		}
-		private final long discardTime;
-		private final AtomicInteger readerCount;
-		private final IndexReader reader;
-		private final String indexType;
-	}
-	
 	/**
-	 * Get the LucenePlugin configured for a given String.
-	 * 
-	 * <p>This method can be used by extending classes.</p>
-	 * 
-	 * @param type the type
-	 * @return the LucenePlugin
+	 * An index not yet set up, with <code>lazyIndexOpening</code>.
 	 */
-	protected LucenePlugin getPluginForString(String type) {
-		IndexData indexData = getIndexData(type);
-		return indexData.plugin;
+	private static final class LazyIndex {
+		private final LucenePlugin plugin;
+		private Thread openingThread = null;
+		private boolean backgroundOpen = false;
+		
+		private LazyIndex(LucenePlugin plugin) {
+			this.plugin = plugin;
+		}
 	}
-
-	/* JMX friendly methods below. */
 	
 	/**
-	 * Get a status string of the search service.
-	 * @return status description
+	 * LRU cache of built search match objects, keyed by document ID for 
+	 * a single IndexReader version.
 	 */
-	public String getStatusDescription() {
-		StringBuilder buf = new StringBuilder();
+	private static final class SearchMatchCache extends LinkedHashMap<Integer, Object> {
+
+		private static final long serialVersionUID = 2385624730146939075L;
 		
-		buf.append("IndexQueue:             ").append(indexQueue.getThreadName()).append("\n");	
-		buf.append("Discarded IndexReaders: ").append(
-				this.discardedIndexReaders.size()).append("\n");
+		private final long readerVersion;
+		private final int maxSize;
+		private long hits = 0;
+		private long misses = 0;
 		
-		buf.append("\nConfigured indicies:\n");
-		for ( IndexData data : indexDataMap.values() ) {
-			buf.append("\n").append(data.type).append("\n");
-			
-			buf.append("    ").append("Directory:        ").append(data.dir).append("\n");
-			buf.append("    ").append("Plugin:           ").append(
-					data.plugin.getClass().getName()).append("\n");
-
-			buf.append("    ").append("MergeFactor:      ").append(
-					data.config.getMergeFactor()).append("\n");
-			buf.append("    ").append("MinMergeDocs:     ").append(
-					data.config.getMinMergeDocs()).append("\n");
-			
-
-			
-			buf.append("    ").append("IndexReader:      ").append(data.reader).append("\n");
-			buf.append("    ").append("IndexSearcher:    ").append(data.searcher).append("\n");
-			buf.append("    ").append("Curr read ops:    ").append(
-					data.readerCount.get()).append("\n");
-			buf.append("    ").append("Update count:     ").append(data.updateCount).append("\n");
-			buf.append("    ").append("Query count:      ").append(data.queryCount).append("\n");
-			buf.append("    ").append("Index queue size: ").append(
-					indexQueue.bufferMap.get(data.type).size()).append("\n");
-			
-			Lock writeLock = data.writeLock;
-			String avail = "locked";
-			if ( writeLock.tryLock() ) {
-				writeLock.unlock();
-				avail = "available";
+		private SearchMatchCache(long readerVersion, int maxSize) {
+			super(16, 0.75f, true);
+			this.readerVersion = readerVersion;
+			this.maxSize = maxSize;
+		}
+		
+		private synchronized Object getMatch(int docId) {
+			Object match = get(docId);
+			if ( match == null ) {
+				misses++;
+			} else {
+				hits++;
 			}
-			buf.append("    ").append("Write lock:       ").append(avail).append("\n");
+			return match;
+		}
+		
+		private synchronized void putMatch(int docId, Object match) {
+			put(docId, match);
 		}
-		return buf.toString();
-	}
 
-	/* Injection methods below. */
-	
-	/**
-	 * @return Returns the baseIndexDirectoryPath.
-	 */
-	public String getBaseIndexDirectoryPath() {
-		return baseIndexDirectoryPath;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, Object> eldest) {
+			return size() > maxSize;
+		}
+		
+		@Override
+		public synchronized String toString() {
+			return size() +" cached, " +hits +" hits, " +misses +" misses";
+		}
 	}
 	
 	/**
-	 * @param baseIndexDirectoryPath The baseIndexDirectoryPath to set.
+	 * Execution options for a search derived from a SearchCriteria, and the
+	 * facet counts resulting from the search.
 	 */
-	public void setBaseIndexDirectoryPath(String baseIndexDirectoryPath) {
-		this.baseIndexDirectoryPath = baseIndexDirectoryPath;
+	private static final class SearchExecution {
+		private final int start;
+		private final int numHits;
+		private final Sort sort;
+		private final String[] facetFields;
+		private final int maxFacetValues;
+		private final SearchCursor after;
+		private final String[] filterNames;
+		private Map<String, Map<String, Integer>> facetCounts;
+		
+		private SearchExecution(int pageSize, SearchCursor after) {
+			this.start = 0;
+			this.numHits = pageSize > 0 ? pageSize : DEFAULT_MAX_SEARCH_RESULTS;
+			this.sort = null;
+			this.facetFields = null;
+			this.maxFacetValues = 0;
+			this.after = after;
+			this.filterNames = null;
+		}
+		
+		private SearchExecution(SearchCriteria criteria) {
+			int pageSize = criteria.getPageSize();
+			int maxResults = criteria.getMaxResults();
+			if ( pageSize > 0 ) {
+				this.start = pageSize * (Math.max(criteria.getPage(), 1) - 1);
+			} else {
+				this.start = 0;
+			}
+			int n = pageSize > 0 ? this.start + pageSize : DEFAULT_MAX_SEARCH_RESULTS;
+			if ( maxResults > 0 && maxResults < n ) {
+				n = maxResults;
+			}
+			this.numHits = criteria.isCountOnly() ? 1 : Math.max(n, 1);
+			
+			Sort s = null;
+			String[] fields = null;
+			int maxValues = 0;
+			String[] filters = null;
+			if ( criteria instanceof IndexSearchCriteria ) {
+				IndexSearchCriteria c = (IndexSearchCriteria)criteria;
+				List<SortDescriptor> sortDescriptors = c.getSortDescriptors();
+				if ( !criteria.isCountOnly() && sortDescriptors != null 
+						&& sortDescriptors.size() > 0 ) {
+					SortField[] sortFields = new SortField[sortDescriptors.size()];
+					int i = 0;
+					for ( SortDescriptor sd : sortDescriptors ) {
+						if ( sd.getSortKey() == null 
+								|| IndexSearchCriteria.SORT_BY_SCORE.equals(sd.getSortKey()) ) {
+							sortFields[i++] = new SortField(null, SortField.SCORE, 
+									sd.isAscending());
+						} else {
+							sortFields[i++] = new SortField(sd.getSortKey(), 
+									SortField.STRING, !sd.isAscending());
+						}
+					}
+					s = new Sort(sortFields);
+				}
+				List<String> facets = c.getFacetFields();
+				if ( facets != null && facets.size() > 0 ) {
+					fields = facets.toArray(new String[facets.size()]);
+					maxValues = c.getMaxFacetValues();
+				}
+				List<String> names = c.getFilterNames();
+				if ( names != null && names.size() > 0 ) {
+					filters = names.toArray(new String[names.size()]);
+				}
+			}
+			this.sort = s;
+			this.facetFields = fields;
+			this.maxFacetValues = maxValues;
+			this.after = null;
+			this.filterNames = filters;
+		}
+		
+		/**
+		 * Create the collector for the search.
+		 * 
+		 * @param type the index type
+		 * @param reader the reader to be searched
+		 * @return the collector
+		 * @throws IOException if an IO error occurs
+		 * @throws SearchCursorExpiredException if the search is after a 
+		 * cursor from a different version of the reader
+		 */
+		private TopDocCollector createCollector(String type, IndexReader reader) 
+		throws IOException {
+			if ( after != null ) {
+				if ( after.getReaderVersion() != reader.getVersion() ) {
+					throw new SearchCursorExpiredException(type, after, reader.getVersion());
+				}
+				return new SearchAfterCollector(numHits, after);
+			}
+			if ( sort == null ) {
+				return new TopDocCollector(numHits);
+			}
+			return new TopFieldDocCollector(reader, sort, numHits);
+		}
+		
+		/**
+		 * Get a cursor for the hits after a full page of hits.
+		 * 
+		 * @param searcher the searcher the hits came from
+		 * @param docs the hits
+		 * @return the cursor, or <em>null</em> if the page was not full
+		 */
+		private SearchCursor getNextCursor(IndexSearcher searcher, ScoreDoc[] docs) {
+			if ( docs.length < numHits || docs.length < 1 ) {
+				return null;
+			}
+			ScoreDoc last = docs[docs.length - 1];
+			return new SearchCursor(last.score, last.doc, 
+					searcher.getIndexReader().getVersion());
+		}
 	}
 	
 	/**
-	 * @return Returns the optimizeTriggerCount.
+	 * TopDocCollector that only collects hits after a SearchCursor, while 
+	 * still counting all hits in the total.
 	 */
-	public int getOptimizeTriggerCount() {
-		return optimizeTriggerCount;
+	private static final class SearchAfterCollector extends TopDocCollector {
+		private final SearchCursor after;
+		private int allHits = 0;
+		
+		private SearchAfterCollector(int numHits, SearchCursor after) {
+			super(numHits);
+			this.after = after;
+		}
+
+		@Override
+		public void collect(int doc, float score) {
+			if ( score > 0.0f ) {
+				// don't add skipped hits to totalHits, or topDocs() fails if none collected
+				allHits++;
+				if ( after.precedes(doc, score) ) {
+					super.collect(doc, score);
+				}
+			}
+		}
+
+		@Override
+		public int getTotalHits() {
+			return allHits;
+		}
 	}
 	
 	/**
-	 * @param optimizeTriggerCount The optimizeTriggerCount to set.
+	 * HitCollector that stops the search when a query is cancelled.
 	 */
-	public void setOptimizeTriggerCount(int optimizeTriggerCount) {
-		this.optimizeTriggerCount = optimizeTriggerCount;
+	private static final class CancellableCollector extends HitCollector {
+		private final HitCollector delegate;
+		private final QueryControl control;
+		
+		private CancellableCollector(HitCollector delegate, QueryControl control) {
+			this.delegate = delegate;
+			this.control = control;
+		}
+		
+		@Override
+		public void collect(int doc, float score) {
+			if ( control.isCancelled() ) {
+				throw new QueryCancelledException();
+			}
+			delegate.collect(doc, score);
+		}
 	}
 	
 	/**
-	 * @return Returns the updateBufferFlushMs.
+	 * Thrown by CancellableCollector to stop a search.
 	 */
-	public long getUpdateBufferFlushMs() {
-		return updateBufferFlushMs;
+	private static final class QueryCancelledException extends RuntimeException {
+		private static final long serialVersionUID = -4512086722734161350L;
 	}
 	
 	/**
-	 * @param updateBufferFlushMs The updateBufferFlushMs to set.
+	 * HitCollector that counts the values of a set of fields for all hits, 
+	 * using the FieldCache, and passes the hits on to another collector.
 	 */
-	public void setUpdateBufferFlushMs(long updateBufferFlushMs) {
-		this.updateBufferFlushMs = updateBufferFlushMs;
+	private static final class FacetCollector extends HitCollector {
+		private final HitCollector delegate;
+		private final String[] fields;
+		private final FieldCache.StringIndex[] indexes;
+		private final int[][] counts;
+		
+		private FacetCollector(IndexReader reader, String[] fields, HitCollector delegate) 
+		throws IOException {
+			this.delegate = delegate;
+			this.fields = fields;
+			this.indexes = new FieldCache.StringIndex[fields.length];
+			this.counts = new int[fields.length][];
+			for ( int i = 0; i < fields.length; i++ ) {
+				indexes[i] = FieldCache.DEFAULT.getStringIndex(reader, fields[i]);
+				counts[i] = new int[indexes[i].lookup.length];
+			}
+		}
+
+		@Override
+		public void collect(int doc, float score) {
+			delegate.collect(doc, score);
+			for ( int i = 0; i < indexes.length; i++ ) {
+				counts[i][indexes[i].order[doc]]++;
+			}
+		}
+		
+		private Map<String, Map<String, Integer>> getFacetCounts(int maxValues) {
+			Map<String, Map<String, Integer>> result 
+				= new LinkedHashMap<String, Map<String, Integer>>(fields.length);
+			for ( int i = 0; i < fields.length; i++ ) {
+				result.put(fields[i], topValues(indexes[i].lookup, counts[i], maxValues));
+			}
+			return result;
+		}
+		
+		private static Map<String, Integer> topValues(String[] lookup, final int[] c, 
+				int maxValues) {
+			// order 0 is documents without a value, so start from 1
+			final int max = maxValues < 1 ? c.length : maxValues;
+			PriorityQueue<Integer> top = new PriorityQueue<Integer>(
+					Math.min(max, c.length) + 1, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer o1, Integer o2) {
+					// lowest count first, then highest order first
+					return c[o1] != c[o2] ? (c[o1] < c[o2] ? -1 : 1) : o2.compareTo(o1);
+				}
+			});
+			for ( int ord = 1; ord < c.length; ord++ ) {
+				if ( c[ord] < 1 ) {
+					continue;
+				}
+				if ( top.size() < max ) {
+					top.add(ord);
+				} else if ( c[ord] > c[top.peek()] ) {
+					top.poll();
+					top.add(ord);
+				}
+			}
+			Integer[] ords = new Integer[top.size()];
+			for ( int i = ords.length - 1; i >= 0; i-- ) {
+				ords[i] = top.poll();
+			}
+			Map<String, Integer> values = new LinkedHashMap<String, Integer>(ords.length);
+			for ( Integer ord : ords ) {
+				values.put(lookup[ord], c[ord]);
+			}
+			return values;
+		}
 	}
 	
 	/**
-	 * @return Returns the updateBufferSize.
+	 * IndexWriter that counts the flushes of its RAM buffer to a new 
+	 * segment, for the flush statistics in {@link #getIndexStatistics(String)}.
+	 * 
+	 * <p>Lucene does not report its flushes, so they are detected from the
+	 * number of buffered documents: a flush has happened whenever fewer 
+	 * documents are buffered than before. This catches the flushes while 
+	 * adding documents (when the RAM buffer or buffered document count 
+	 * limit is reached), flushes from other writer calls (noticed on the 
+	 * next add), and the final flush when the writer is closed.</p>
 	 */
-	public int getUpdateBufferSize() {
-		return updateBufferSize;
+	private static final class FlushCountingIndexWriter extends IndexWriter {
+		private final IndexData data;
+		private int ramDocs = 0;
+		private long ramBytes = 0;
+		
+		private FlushCountingIndexWriter(IndexData data, boolean create) 
+		throws IOException {
+			super(data.dir, data.plugin.getAnalyzer(), create, data.deletionPolicy, 
+					MaxFieldLength.UNLIMITED);
+			this.data = data;
+		}
+		
+		@Override
+		public void addDocument(Document doc, Analyzer analyzer) throws IOException {
+			int docs = checkFlushed();
+			long bytes = ramSizeInBytes();
+			super.addDocument(doc, analyzer);
+			checkAdded(docs, bytes);
+		}
+		
+		@Override
+		public void updateDocument(Term term, Document doc, Analyzer analyzer) 
+		throws IOException {
+			int docs = checkFlushed();
+			long bytes = ramSizeInBytes();
+			super.updateDocument(term, doc, analyzer);
+			checkAdded(docs, bytes);
+		}
+		
+		/**
+		 * Record the flush about to be done by closing the writer, and any 
+		 * flush since the last document was added.
+		 */
+		private void recordClosingFlush() {
+			int docs = checkFlushed();
+			if ( docs > 0 ) {
+				record(docs, ramSizeInBytes());
+			}
+			ramDocs = 0;
+			ramBytes = 0;
+		}
+		
+		private int checkFlushed() {
+			int docs = numRamDocs();
+			if ( docs < ramDocs ) {
+				record(ramDocs - docs, ramBytes);
+			}
+			return docs;
+		}
+		
+		private void checkAdded(int docsBefore, long bytesBefore) {
+			int docs = numRamDocs();
+			if ( docs <= docsBefore ) {
+				// flushed while adding, including the added document if none left
+				record(docsBefore + 1 - docs, bytesBefore);
+			}
+			ramDocs = docs;
+			ramBytes = ramSizeInBytes();
+		}
+		
+		private void record(int docs, long bytes) {
+			data.flushCount.incrementAndGet();
+			data.flushedDocCount.addAndGet(docs);
+			data.flushedBytes.addAndGet(bytes);
+		}
 	}
 	
 	/**
-	 * @param updateBufferSize The updateBufferSize to set.
+	 * Filter for the documents matching a query, cached as a bitset per
+	 * IndexReader.
+	 * 
+	 * <p>Readers are weakly referenced, so searches still running on the 
+	 * previous reader after a searcher swap keep their cached bits without
+	 * keeping the reader from being garbage collected once closed.</p>
+	 */
+	private static final class CachedQueryFilter extends Filter {
+
+		private static final long serialVersionUID = -1482273905622981542L;
+		
+		private final Query query;
+		private transient Map<IndexReader, OpenBitSet> cache = null;
+		
+		private CachedQueryFilter(Query query) {
+			this.query = query;
+		}
+
+		@Override
+		public DocIdSet getDocIdSet(IndexReader indexReader) throws IOException {
+			return getBits(indexReader);
+		}
+		
+		private synchronized OpenBitSet getBits(IndexReader indexReader) throws IOException {
+			if ( cache == null ) {
+				cache = new WeakHashMap<IndexReader, OpenBitSet>();
+			} else {
+				OpenBitSet bits = cache.get(indexReader);
+				if ( bits != null ) {
+					return bits;
+				}
+			}
+			final OpenBitSet result = new OpenBitSet(indexReader.maxDoc());
+			new IndexSearcher(indexReader).search(query, new HitCollector() {
+				@Override
+				public void collect(int doc, float score) {
+					result.fastSet(doc);
+				}
+			});
+			cache.put(indexReader, result);
+			return result;
+		}
+		
+		private synchronized void clear() {
+			cache = null;
+		}
+		
+		@Override
+		public String toString() {
+			return "CachedQueryFilter(" +query +")";
+		}
+	}
+	
+	/**
+	 * Filter for the documents matched by all of a set of CachedQueryFilters.
+	 */
+	private static final class IntersectionFilter extends Filter {
+
+		private static final long serialVersionUID = 7236617795838447214L;
+		
+		private final CachedQueryFilter[] filters;
+		
+		private IntersectionFilter(CachedQueryFilter[] filters) {
+			this.filters = filters;
+		}
+
+		@Override
+		public DocIdSet getDocIdSet(IndexReader reader) throws IOException {
+			OpenBitSet result = (OpenBitSet)filters[0].getBits(reader).clone();
+			for ( int i = 1; i < filters.length; i++ ) {
+				result.intersect(filters[i].getBits(reader));
+			}
+			return result;
+		}
+	}
+	
+	private static final class DiscardedIndexReader {
+		private DiscardedIndexReader(AtomicInteger readerCount, IndexReader reader, 
+				String indexType) {
+			this.discardTime = System.currentTimeMillis();
+			this.readerCount = readerCount;
+			this.reader = reader;
+			this.indexType = indexType;
+		}
+		private final long discardTime;
+		private final AtomicInteger readerCount;
+		private final IndexReader reader;
+		private final String indexType;
+	}
+	
+	/**
+	 * Copy the current commit point of an index to a backup directory, 
+	 * without stopping indexing.
+	 * 
+	 * <p>The commit point is pinned with a snapshot deletion policy while
+	 * it is copied, so index updates can continue but will not delete any 
+	 * of its files. Lucene never modifies index files once written, so any 
+	 * file already in the backup directory with the same name, size, and 
+	 * modification time as the index file is not copied again; repeated 
+	 * backups to the same directory only copy the segments created since 
+	 * the previous backup. The segments file is copied last, so the backup 
+	 * directory always holds a usable index. Index files in the backup 
+	 * directory that are no longer part of the index are then deleted.</p>
+	 * 
+	 * <p>Only one backup of an index can run at a time; other calls for 
+	 * the same index wait for it to finish.</p>
+	 * 
+	 * @param type the index to back up
+	 * @param backupDirectory the directory to copy the index files to
+	 * @return the backup results
+	 */
+	public IndexBackupResults backupIndex(String type, File backupDirectory) {
+		IndexData data = getIndexData(type);
+		try {
+			return backupIndex(data, backupDirectory, null);
+		} catch ( IOException e ) {
+			throw new RuntimeException("Unable to back up index [" +type +"] to [" 
+					+backupDirectory.getAbsolutePath() +"]", e);
+		}
+	}
+	
+	@Override
+	public IndexStatistics getIndexStatistics(String type) {
+		IndexData data = getIndexData(type);
+		long start = System.currentTimeMillis();
+		IndexReader reader = null;
+		TermEnum termEnum = null;
+		try {
+			reader = getIndexReader(data, NOT_SHARED);
+			IndexCommit commit = reader.getIndexCommit();
+			Map<String, Long> segmentSizes = new TreeMap<String, Long>();
+			long sizeInBytes = 0;
+			for ( Object o : commit.getFileNames() ) {
+				String fileName = (String)o;
+				long length;
+				try {
+					length = data.dir.fileLength(fileName);
+				} catch ( FileNotFoundException e ) {
+					// deleted by a newer commit since the reader was opened
+					continue;
+				}
+				sizeInBytes += length;
+				String segment = segmentName(fileName);
+				if ( segment != null ) {
+					Long size = segmentSizes.get(segment);
+					segmentSizes.put(segment, size == null ? length : size + length);
+				}
+			}
+			
+			Map<String, Integer> fieldTermCounts = new TreeMap<String, Integer>();
+			for ( Object o : reader.getFieldNames(FieldOption.INDEXED) ) {
+				fieldTermCounts.put((String)o, 0);
+			}
+			termEnum = reader.terms();
+			String field = null;
+			int count = 0;
+			while ( termEnum.next() ) {
+				Term t = termEnum.term();
+				if ( !t.field().equals(field) ) {
+					if ( field != null ) {
+						fieldTermCounts.put(field, count);
+					}
+					field = t.field();
+					count = 0;
+				}
+				count++;
+			}
+			if ( field != null ) {
+				fieldTermCounts.put(field, count);
+			}
+			
+			return new IndexStatistics(type, reader.numDocs(), reader.maxDoc(), 
+					reader.isOptimized(), segmentSizes, sizeInBytes, fieldTermCounts, 
+					commit.getGeneration(), commit.getVersion(), 
+					data.dir.fileModified(commit.getSegmentsFileName()), 
+					data.flushCount.get(), data.flushedDocCount.get(), 
+					data.flushedBytes.get(), System.currentTimeMillis() - start);
+		} catch ( IOException e ) {
+			throw new RuntimeException("Unable to get statistics for index [" 
+					+type +"]", e);
+		} finally {
+			if ( termEnum != null ) {
+				try {
+					termEnum.close();
+				} catch ( IOException e ) {
+					log.warn("Error closing TermEnum for index [" +type +"]", e);
+				}
+			}
+			try {
+				closeIndexReader(reader, type);
+			} catch ( Exception e ) {
+				traceLog.warn(TraceOp.ERROR +"Unable to close index reader", e);
+			}
+		}
+	}
+	
+	/**
+	 * Get the name of the segment an index file belongs to.
+	 * 
+	 * <p>Segment files are named like <code>_3.cfs</code>, or 
+	 * <code>_3_1.del</code> for files updated after the segment was 
+	 * written.</p>
+	 * 
+	 * @param fileName the index file name
+	 * @return the segment name, or <em>null</em> if not a segment file
+	 */
+	private static String segmentName(String fileName) {
+		if ( !fileName.startsWith("_") ) {
+			return null;
+		}
+		int end = fileName.indexOf('.');
+		if ( end < 0 ) {
+			end = fileName.length();
+		}
+		int gen = fileName.indexOf('_', 1);
+		if ( gen > 0 && gen < end ) {
+			end = gen;
+		}
+		return fileName.substring(0, end);
+	}
+	
+	private IndexBackupResults backupIndex(IndexData data, File backupDirectory, 
+			Set<String> retainFileNames) throws IOException {
+		if ( !backupDirectory.exists() && !backupDirectory.mkdirs() ) {
+			throw new IOException("Unable to create backup directory [" 
+					+backupDirectory.getAbsolutePath() +"]");
+		}
+		data.backupLock.lock();
+		try {
+			if ( !data.deletionPolicyInitialized ) {
+				// no writer opened yet, so policy does not know the current commit
+				data.writeLock.lock();
+				try {
+					createIndexWriter(data, false, false).close();
+				} finally {
+					data.writeLock.unlock();
+				}
+			}
+			IndexCommit commit = (IndexCommit)data.deletionPolicy.snapshot();
+			try {
+				IndexBackupResults results = copyIndexCommit(data.type, commit, 
+						new File(indexDirectory, data.type), backupDirectory, 
+						retainFileNames);
+				if ( log.isInfoEnabled() ) {
+					log.info("Backed up index: " +results);
+				}
+				return results;
+			} finally {
+				data.deletionPolicy.release();
+			}
+		} finally {
+			data.backupLock.unlock();
+		}
+	}
+	
+	/**
+	 * Copy the files of an index commit point to another directory.
+	 * 
+	 * <p>Files already in the destination directory with the same name, size,
+	 * and modification time are not copied again. The segments file is 
+	 * copied last and then renamed into place, so the destination always 
+	 * holds a usable index. Index files in the destination directory that 
+	 * are not part of the commit or <code>retainFileNames</code> are then 
+	 * deleted.</p>
+	 * 
+	 * @param type the index type
+	 * @param commit the commit point to copy
+	 * @param srcDir the directory holding the commit's files
+	 * @param destDir the directory to copy the files to
+	 * @param retainFileNames names of files not to delete from the destination
+	 * directory, or <em>null</em>
+	 * @return the copy results
+	 * @throws IOException if an IO error occurs
+	 */
+	private IndexBackupResults copyIndexCommit(String type, IndexCommit commit, 
+			File srcDir, File destDir, Set<String> retainFileNames) 
+	throws IOException {
+		long start = System.currentTimeMillis();
+		String segmentsFileName = commit.getSegmentsFileName();
+		if ( traceLog.isInfoEnabled() ) {
+			traceLog.info(TraceOp.CONCURRENCY +"Copying index [" +type 
+					+"] commit [" +segmentsFileName +"] from [" 
+					+srcDir.getAbsolutePath() +"] to [" +destDir.getAbsolutePath() +"]");
+		}
+		Set<String> fileNames = new HashSet<String>();
+		int copied = 0;
+		int skipped = 0;
+		long bytes = 0;
+		for ( Object o : commit.getFileNames() ) {
+			String name = (String)o;
+			fileNames.add(name);
+			if ( name.equals(segmentsFileName) ) {
+				continue;
+			}
+			File src = new File(srcDir, name);
+			File dest = new File(destDir, name);
+			if ( dest.exists() && dest.length() == src.length() 
+					&& dest.lastModified() == src.lastModified() ) {
+				skipped++;
+				continue;
+			}
+			bytes += copyFile(src, dest);
+			copied++;
+		}
+		
+		// copy segments file last, under a name Lucene ignores, then rename to 
+		// make the new files live
+		File segmentsFile = new File(destDir, segmentsFileName);
+		File pendingSegmentsFile = new File(destDir, "pending_" +segmentsFileName);
+		bytes += copyFile(new File(srcDir, segmentsFileName), pendingSegmentsFile);
+		if ( segmentsFile.exists() && !segmentsFile.delete() ) {
+			throw new IOException("Unable to replace segments file [" 
+					+segmentsFile.getAbsolutePath() +"]");
+		}
+		if ( !pendingSegmentsFile.renameTo(segmentsFile) ) {
+			throw new IOException("Unable to rename [" +pendingSegmentsFile.getAbsolutePath()
+					+"] to [" +segmentsFile.getName() +"]");
+		}
+		copied++;
+		
+		int deleted = 0;
+		IndexFileNameFilter filter = IndexFileNameFilter.getFilter();
+		for ( File f : destDir.listFiles() ) {
+			String name = f.getName();
+			if ( fileNames.contains(name) 
+					|| (retainFileNames != null && retainFileNames.contains(name))
+					|| !filter.accept(destDir, name) ) {
+				continue;
+			}
+			if ( f.delete() ) {
+				deleted++;
+			} else {
+				log.warn("Unable to delete obsolete index file [" +f.getAbsolutePath() +"]");
+			}
+		}
+		
+		return new IndexBackupResults(type, destDir, segmentsFileName, 
+				commit.getGeneration(), fileNames, copied, skipped, deleted, bytes, 
+				System.currentTimeMillis() - start);
+	}
+	
+	/**
+	 * Publish the current commit point of an index to the replication 
+	 * directory, if it has changed since last published.
+	 * 
+	 * <p>The files of the previously published commit are kept, so replicas
+	 * still copying that commit can finish.</p>
+	 * 
+	 * @param data the index data
+	 * @throws IOException if an IO error occurs
+	 */
+	private void publishIndex(IndexData data) throws IOException {
+		if ( !IndexReader.indexExists(data.dir) ) {
+			return;
+		}
+		long version = IndexReader.getCurrentVersion(data.dir);
+		if ( version == data.replicationVersion ) {
+			return;
+		}
+		IndexBackupResults results = backupIndex(data, 
+				new File(replicationDirectory, data.type), data.replicationFileNames);
+		data.replicationVersion = version;
+		data.replicationFileNames = results.getFileNames();
+	}
+	
+	/**
+	 * Copy the latest commit point of an index from the replication directory,
+	 * if it has changed since last copied, and then reopen the index.
+	 * 
+	 * <p>The files of the previously copied commit are kept, as the discarded
+	 * IndexReader may still be using them.</p>
+	 * 
+	 * @param data the index data
+	 * @throws IOException if an IO error occurs
+	 */
+	private void replicateIndex(IndexData data) throws IOException {
+		File srcDir = new File(replicationDirectory, data.type);
+		if ( !srcDir.isDirectory() ) {
+			return;
+		}
+		IndexCommit latest = null;
+		Directory dir = FSDirectory.getDirectory(srcDir);
+		try {
+			for ( Object o : IndexReader.listCommits(dir) ) {
+				IndexCommit commit = (IndexCommit)o;
+				if ( latest == null || commit.getGeneration() > latest.getGeneration() ) {
+					latest = commit;
+				}
+			}
+			if ( latest == null || latest.getVersion() == data.replicationVersion ) {
+				return;
+			}
+			IndexBackupResults results;
+			data.writeLock.lock();
+			try {
+				results = copyIndexCommit(data.type, latest, srcDir, 
+						new File(indexDirectory, data.type), data.replicationFileNames);
+				expireIndexReader(data);
+			} finally {
+				data.writeLock.unlock();
+			}
+			data.replicationVersion = latest.getVersion();
+			data.replicationFileNames = results.getFileNames();
+			if ( log.isInfoEnabled() ) {
+				log.info("Replicated index: " +results);
+			}
+		} finally {
+			dir.close();
+		}
+		refreshIndexSearcher(data);
+	}
+	
+	private void replicateIndexes() {
+		for ( IndexData data : indexDataMap.values() ) {
+			try {
+				if ( replicationMode == ReplicationMode.PRIMARY ) {
+					publishIndex(data);
+				} else {
+					replicateIndex(data);
+				}
+			} catch ( Exception e ) {
+				// a replica may see files deleted by the primary while copying; 
+				// the next run will pick up the newer commit
+				log.warn(replicationMode +" replication of index [" +data.type 
+						+"] failed: " +e);
+			}
+		}
+	}
+	
+	private boolean isReplica(String type, Object item) {
+		if ( replicationMode != ReplicationMode.REPLICA ) {
+			return false;
+		}
+		if ( log.isDebugEnabled() ) {
+			log.debug("REPLICA ignoring update to index [" +type +"]: " +item);
+		}
+		return true;
+	}
+	
+	private static long copyFile(File src, File dest) throws IOException {
+		FileInputStream in = new FileInputStream(src);
+		long size;
+		try {
+			FileOutputStream out = new FileOutputStream(dest);
+			try {
+				FileChannel inChannel = in.getChannel();
+				FileChannel outChannel = out.getChannel();
+				size = inChannel.size();
+				long position = 0;
+				while ( position < size ) {
+					position += inChannel.transferTo(position, size - position, outChannel);
+				}
+				outChannel.force(true);
+			} finally {
+				out.close();
+			}
+		} finally {
+			in.close();
+		}
+		// if this fails the file is just copied again by the next backup
+		dest.setLastModified(src.lastModified());
+		return size;
+	}
+	
+	/**
+	 * Get the LucenePlugin configured for a given String.
+	 * 
+	 * <p>This method can be used by extending classes.</p>
+	 * 
+	 * @param type the type
+	 * @return the LucenePlugin
+	 */
+	protected LucenePlugin getPluginForString(String type) {
+		IndexData indexData = getIndexData(type);
+		return indexData.plugin;
+	}
+
+	/* JMX friendly methods below. */
+	
+	/**
+	 * Get a status string of the search service.
+	 * @return status description
+	 */
+	public String getStatusDescription() {
+		StringBuilder buf = new StringBuilder();
+		
+		buf.append("IndexQueue:             ").append(indexQueue.getThreadName()).append("\n");	
+		buf.append("Discarded IndexReaders: ").append(
+				this.discardedIndexReaders.size()).append("\n");
+		buf.append("Replication:            ").append(replicationMode);
+		if ( replicationDirectory != null ) {
+			buf.append(" (").append(replicationDirectory.getAbsolutePath()).append(")");
+		}
+		buf.append("\n");
+		
+		synchronized ( scheduledTasks ) {
+			for ( ScheduledTask task : scheduledTasks ) {
+				buf.append("Scheduled task:         ").append(task).append("\n");
+			}
+		}
+		if ( !lazyIndexes.isEmpty() ) {
+			buf.append("Not yet opened:         ").append(
+					new TreeSet<String>(lazyIndexes.keySet())).append("\n");
+		}
+		
+		buf.append("\nConfigured indicies:\n");
+		for ( IndexData data : indexDataMap.values() ) {
+			buf.append("\n").append(data.type).append("\n");
+			
+			buf.append("    ").append("Directory:        ").append(data.dir).append("\n");
+			buf.append("    ").append("Plugin:           ").append(
+					data.plugin.getClass().getName()).append("\n");
+
+			buf.append("    ").append("MergeFactor:      ").append(
+					data.config.getMergeFactor()).append("\n");
+			buf.append("    ").append("MinMergeDocs:     ").append(
+					data.config.getMinMergeDocs()).append("\n");
+			buf.append("    ").append("RAMBufferSizeMB:  ").append(
+					data.extendedConfig.getRamBufferSizeMB()).append("\n");
+			buf.append("    ").append("MaxMergeMB:       ").append(
+					data.extendedConfig.getMaxMergeMB()).append("\n");
+			buf.append("    ").append("CompoundFile:     ").append(
+					data.extendedConfig.isUseCompoundFile()).append("\n");
+			buf.append("    ").append("TermIndexIntvl:   ").append(
+					data.extendedConfig.getTermIndexInterval()).append("\n");
+			
+
+			
+			buf.append("    ").append("IndexReader:      ").append(data.reader).append("\n");
+			buf.append("    ").append("IndexSearcher:    ").append(data.searcher).append("\n");
+			if ( data.replicationVersion >= 0 ) {
+				buf.append("    ").append("Replicated ver:   ").append(data.replicationVersion).append("\n");
+			}
+			if ( data.verifyTimeMs >= 0 ) {
+				buf.append("    ").append("Verified:         ").append(data.verifyStatus)
+					.append(" (").append(data.verifyTimeMs).append("ms)\n");
+			}
+			if ( data.lastWarmUpMs >= 0 ) {
+				buf.append("    ").append("Last warm-up ms:  ").append(data.lastWarmUpMs).append("\n");
+			}
+			if ( data.matchCache != null ) {
+				buf.append("    ").append("Match cache:      ").append(data.matchCache).append("\n");
+			}
+			if ( !data.filters.isEmpty() ) {
+				buf.append("    ").append("Cached filters:   ").append(
+						data.filters.keySet()).append("\n");
+			}
+			for ( FuzzyTermIndex.Cache cache : data.fuzzyTermIndexes.values() ) {
+				buf.append("    ").append("Fuzzy term index: ").append(cache).append("\n");
+			}
+			for ( TermSuggester.Cache cache : data.suggesters.values() ) {
+				buf.append("    ").append("Suggestions:      ").append(cache).append("\n");
+			}
+			buf.append("    ").append("Curr read ops:    ").append(
+					data.readerCount.get()).append("\n");
+			buf.append("    ").append("Update count:     ").append(data.updateCount).append("\n");
+			if ( data.flushCount.get() > 0 ) {
+				buf.append("    ").append("Flushes:          ").append(data.flushCount.get())
+					.append(" (").append(data.flushedDocCount.get() / data.flushCount.get())
+					.append(" docs avg)\n");
+			}
+			buf.append("    ").append("Query count:      ").append(data.queryCount).append("\n");
+			buf.append("    ").append("Index queue size: ").append(
+					indexQueue.bufferMap.get(data.type).size()).append("\n");
+			
+			Lock writeLock = data.writeLock;
+			String avail = "locked";
+			if ( writeLock.tryLock() ) {
+				writeLock.unlock();
+				avail = "available";
+			}
+			buf.append("    ").append("Write lock:       ").append(avail).append("\n");
+		}
+		
+		for ( IndexListener listener : indexEventListeners ) {
+			if ( listener instanceof AsyncIndexListener ) {
+				AsyncIndexListener async = (AsyncIndexListener)listener;
+				buf.append("\n").append(async.getDelegate()).append("\n");
+				buf.append("    ").append("Queued batches:   ").append(
+						async.getQueuedBatchCount()).append("\n");
+				buf.append("    ").append("Delivered events: ").append(
+						async.getDeliveredEventCount()).append("\n");
+				buf.append("    ").append("Dropped events:   ").append(
+						async.getDroppedEventCount()).append("\n");
+				buf.append("    ").append("Failed events:    ").append(
+						async.getFailedEventCount()).append("\n");
+			}
+		}
+		return buf.toString();
+	}
+
+	/* Injection methods below. */
+	
+	/**
+	 * @return Returns the baseIndexDirectoryPath.
+	 */
+	public String getBaseIndexDirectoryPath() {
+		return baseIndexDirectoryPath;
+	}
+	
+	/**
+	 * @param baseIndexDirectoryPath The baseIndexDirectoryPath to set.
+	 */
+	public void setBaseIndexDirectoryPath(String baseIndexDirectoryPath) {
+		this.baseIndexDirectoryPath = baseIndexDirectoryPath;
+	}
+	
+	/**
+	 * @return Returns the optimizeTriggerCount.
+	 */
+	public int getOptimizeTriggerCount() {
+		return optimizeTriggerCount;
+	}
+	
+	/**
+	 * @param optimizeTriggerCount The optimizeTriggerCount to set.
+	 */
+	public void setOptimizeTriggerCount(int optimizeTriggerCount) {
+		this.optimizeTriggerCount = optimizeTriggerCount;
+	}
+	
+	/**
+	 * @return Returns the updateBufferFlushMs.
+	 */
+	public long getUpdateBufferFlushMs() {
+		return updateBufferFlushMs;
+	}
+	
+	/**
+	 * @param updateBufferFlushMs The updateBufferFlushMs to set.
+	 */
+	public void setUpdateBufferFlushMs(long updateBufferFlushMs) {
+		this.updateBufferFlushMs = updateBufferFlushMs;
+	}
+	
+	/**
+	 * @return Returns the updateBufferSize.
+	 */
+	public int getUpdateBufferSize() {
+		return updateBufferSize;
+	}
+	
+	/**
+	 * @param updateBufferSize The updateBufferSize to set.
 	 */
 	public void setUpdateBufferSize(int updateBufferSize) {
 		this.updateBufferSize = updateBufferSize;
 	}
 	
+	/**
+	 * @return the batchRamBufferSizeMB
+	 */
+	public double getBatchRamBufferSizeMB() {
+		return batchRamBufferSizeMB;
+	}
+
+	/**
+	 * @param batchRamBufferSizeMB the batchRamBufferSizeMB to set
+	 */
+	public void setBatchRamBufferSizeMB(double batchRamBufferSizeMB) {
+		this.batchRamBufferSizeMB = batchRamBufferSizeMB;
+	}
+	
 	/**
 	 * @return Returns the batchMergeFactor.
 	 */
@@ -2217,6 +4995,286 @@ public class LuceneSearchService implements LuceneService {
 		this.throwExceptionDuringInitialize = throwExceptionDuringInitialize;
 	}
 	
+	/**
+	 * @return the indexEventQueueSize
+	 */
+	public int getIndexEventQueueSize() {
+		return indexEventQueueSize;
+	}
+
+	/**
+	 * @param indexEventQueueSize the indexEventQueueSize to set
+	 */
+	public void setIndexEventQueueSize(int indexEventQueueSize) {
+		this.indexEventQueueSize = indexEventQueueSize;
+	}
+	
+	/**
+	 * @return the indexEventShutdownTimeoutMs
+	 */
+	public long getIndexEventShutdownTimeoutMs() {
+		return indexEventShutdownTimeoutMs;
+	}
+
+	/**
+	 * @param indexEventShutdownTimeoutMs the indexEventShutdownTimeoutMs to set
+	 */
+	public void setIndexEventShutdownTimeoutMs(long indexEventShutdownTimeoutMs) {
+		this.indexEventShutdownTimeoutMs = indexEventShutdownTimeoutMs;
+	}
+	
+	/**
+	 * @return the searchMatchCacheSize
+	 */
+	public int getSearchMatchCacheSize() {
+		return searchMatchCacheSize;
+	}
+
+	/**
+	 * @param searchMatchCacheSize the searchMatchCacheSize to set
+	 */
+	public void setSearchMatchCacheSize(int searchMatchCacheSize) {
+		this.searchMatchCacheSize = searchMatchCacheSize;
+	}
+	
+	/**
+	 * @return the trieDatePrecisionStep
+	 */
+	public int getTrieDatePrecisionStep() {
+		return trieDatePrecisionStep;
+	}
+
+	/**
+	 * @param trieDatePrecisionStep the trieDatePrecisionStep to set
+	 */
+	public void setTrieDatePrecisionStep(int trieDatePrecisionStep) {
+		this.trieDatePrecisionStep = trieDatePrecisionStep;
+	}
+
+	/**
+	 * @return the defaultQueryTimeoutMs
+	 */
+	public long getDefaultQueryTimeoutMs() {
+		return defaultQueryTimeoutMs;
+	}
+
+	/**
+	 * @param defaultQueryTimeoutMs the defaultQueryTimeoutMs to set
+	 */
+	public void setDefaultQueryTimeoutMs(long defaultQueryTimeoutMs) {
+		this.defaultQueryTimeoutMs = defaultQueryTimeoutMs;
+	}
+
+	/**
+	 * @return the fuzzyMinSimilarity
+	 */
+	public float getFuzzyMinSimilarity() {
+		return fuzzyMinSimilarity;
+	}
+
+	/**
+	 * @param fuzzyMinSimilarity the fuzzyMinSimilarity to set
+	 */
+	public void setFuzzyMinSimilarity(float fuzzyMinSimilarity) {
+		this.fuzzyMinSimilarity = fuzzyMinSimilarity;
+	}
+
+	/**
+	 * @return the fuzzyPrefixLength
+	 */
+	public int getFuzzyPrefixLength() {
+		return fuzzyPrefixLength;
+	}
+
+	/**
+	 * @param fuzzyPrefixLength the fuzzyPrefixLength to set
+	 */
+	public void setFuzzyPrefixLength(int fuzzyPrefixLength) {
+		this.fuzzyPrefixLength = fuzzyPrefixLength;
+	}
+
+	/**
+	 * @return the fuzzyMaxExpansions
+	 */
+	public int getFuzzyMaxExpansions() {
+		return fuzzyMaxExpansions;
+	}
+
+	/**
+	 * @param fuzzyMaxExpansions the fuzzyMaxExpansions to set
+	 */
+	public void setFuzzyMaxExpansions(int fuzzyMaxExpansions) {
+		this.fuzzyMaxExpansions = fuzzyMaxExpansions;
+	}
+
+	/**
+	 * @return the checkIndexOnStartup
+	 */
+	public boolean isCheckIndexOnStartup() {
+		return checkIndexOnStartup;
+	}
+
+	/**
+	 * @param checkIndexOnStartup the checkIndexOnStartup to set
+	 */
+	public void setCheckIndexOnStartup(boolean checkIndexOnStartup) {
+		this.checkIndexOnStartup = checkIndexOnStartup;
+	}
+
+	/**
+	 * @return the verifyThreadCount
+	 */
+	public int getVerifyThreadCount() {
+		return verifyThreadCount;
+	}
+
+	/**
+	 * @param verifyThreadCount the verifyThreadCount to set
+	 */
+	public void setVerifyThreadCount(int verifyThreadCount) {
+		this.verifyThreadCount = verifyThreadCount;
+	}
+
+	/**
+	 * @return the lazyIndexOpening
+	 */
+	public boolean isLazyIndexOpening() {
+		return lazyIndexOpening;
+	}
+
+	/**
+	 * @param lazyIndexOpening the lazyIndexOpening to set
+	 */
+	public void setLazyIndexOpening(boolean lazyIndexOpening) {
+		this.lazyIndexOpening = lazyIndexOpening;
+	}
+
+	/**
+	 * @return the lazyIndexPreOpen
+	 */
+	public boolean isLazyIndexPreOpen() {
+		return lazyIndexPreOpen;
+	}
+
+	/**
+	 * @param lazyIndexPreOpen the lazyIndexPreOpen to set
+	 */
+	public void setLazyIndexPreOpen(boolean lazyIndexPreOpen) {
+		this.lazyIndexPreOpen = lazyIndexPreOpen;
+	}
+
+	/**
+	 * @return the updateBufferFlushMinMs
+	 */
+	public long getUpdateBufferFlushMinMs() {
+		return updateBufferFlushMinMs;
+	}
+
+	/**
+	 * @param updateBufferFlushMinMs the updateBufferFlushMinMs to set
+	 */
+	public void setUpdateBufferFlushMinMs(long updateBufferFlushMinMs) {
+		this.updateBufferFlushMinMs = updateBufferFlushMinMs;
+	}
+
+	/**
+	 * @return the updateBufferFlushMaxMs
+	 */
+	public long getUpdateBufferFlushMaxMs() {
+		return updateBufferFlushMaxMs;
+	}
+
+	/**
+	 * @param updateBufferFlushMaxMs the updateBufferFlushMaxMs to set
+	 */
+	public void setUpdateBufferFlushMaxMs(long updateBufferFlushMaxMs) {
+		this.updateBufferFlushMaxMs = updateBufferFlushMaxMs;
+	}
+
+	/**
+	 * @return the schedulerThreadCount
+	 */
+	public int getSchedulerThreadCount() {
+		return schedulerThreadCount;
+	}
+
+	/**
+	 * @param schedulerThreadCount the schedulerThreadCount to set
+	 */
+	public void setSchedulerThreadCount(int schedulerThreadCount) {
+		this.schedulerThreadCount = schedulerThreadCount;
+	}
+
+	/**
+	 * @return the termIndexRebuildMs
+	 */
+	public long getTermIndexRebuildMs() {
+		return termIndexRebuildMs;
+	}
+
+	/**
+	 * @param termIndexRebuildMs the termIndexRebuildMs to set
+	 */
+	public void setTermIndexRebuildMs(long termIndexRebuildMs) {
+		this.termIndexRebuildMs = termIndexRebuildMs;
+	}
+
+	/**
+	 * @return the searchThreadCount
+	 */
+	public int getSearchThreadCount() {
+		return searchThreadCount;
+	}
+
+	/**
+	 * @param searchThreadCount the searchThreadCount to set
+	 */
+	public void setSearchThreadCount(int searchThreadCount) {
+		this.searchThreadCount = searchThreadCount;
+	}
+
+	/**
+	 * @return the replicationMode
+	 */
+	public ReplicationMode getReplicationMode() {
+		return replicationMode;
+	}
+
+	/**
+	 * @param replicationMode the replicationMode to set
+	 */
+	public void setReplicationMode(ReplicationMode replicationMode) {
+		this.replicationMode = replicationMode;
+	}
+
+	/**
+	 * @return the replicationDirectoryPath
+	 */
+	public String getReplicationDirectoryPath() {
+		return replicationDirectoryPath;
+	}
+
+	/**
+	 * @param replicationDirectoryPath the replicationDirectoryPath to set
+	 */
+	public void setReplicationDirectoryPath(String replicationDirectoryPath) {
+		this.replicationDirectoryPath = replicationDirectoryPath;
+	}
+
+	/**
+	 * @return the replicationIntervalMs
+	 */
+	public long getReplicationIntervalMs() {
+		return replicationIntervalMs;
+	}
+
+	/**
+	 * @param replicationIntervalMs the replicationIntervalMs to set
+	 */
+	public void setReplicationIntervalMs(long replicationIntervalMs) {
+		this.replicationIntervalMs = replicationIntervalMs;
+	}
+	
 	/**
 	 * @return the dayDateFormat
 	 */
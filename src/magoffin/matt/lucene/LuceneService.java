@@ -25,15 +25,18 @@
 package magoffin.matt.lucene;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.regex.Pattern;
+import org.apache.lucene.document.Document;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Filter;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TopDocCollector;
@@ -207,6 +210,32 @@ public interface LuceneService {
 	 */
 	Date parseDate(String dateStr, TimeZone zone);
 	
+	/**
+	 * Add a Date to a Document as a numeric field suitable for 
+	 * {@link #dateRangeQuery(String, Date, Date)}.
+	 * 
+	 * <p>The date is indexed with millisecond accuracy as a set of 
+	 * {@link TrieUtils} terms, so range queries on it take about the same 
+	 * time no matter how wide the range is. The field is not stored and 
+	 * cannot be used for sorting.</p>
+	 * 
+	 * @param doc the document to add the field to
+	 * @param field the field name
+	 * @param date the date
+	 */
+	void addDateField(Document doc, String field, Date date);
+	
+	/**
+	 * Create an inclusive range query on a field added with 
+	 * {@link #addDateField(Document, String, Date)}.
+	 * 
+	 * @param field the field name
+	 * @param from the starting date, or <em>null</em> for no lower bound
+	 * @param to the ending date, or <em>null</em> for no upper bound
+	 * @return the query
+	 */
+	Query dateRangeQuery(String field, Date from, Date to);
+	
 	/**
 	 * Get the TimeZone used by the index.
 	 * @return TimeZone
@@ -236,6 +265,17 @@ public interface LuceneService {
 	 */
 	void deleteObjectById(String type, Object objectId);
 	
+	/**
+	 * Delete a set of objects from the index based on their IDs.
+	 * 
+	 * <p>Any queued updates for the index are flushed first, then all the 
+	 * objects are deleted in a single index operation.</p>
+	 * 
+	 * @param type the index type
+	 * @param objectIds the object IDs
+	 */
+	void deleteObjectsById(String type, Collection<?> objectIds);
+	
 	/**
 	 * Reindex an entire index type.
 	 * @param type the index type
@@ -243,6 +283,29 @@ public interface LuceneService {
 	 */
 	IndexStatusCallback reindex(String type);
 	
+	/**
+	 * Index a large number of items in a single batch operation.
+	 * 
+	 * <p>This is meant for initial loads. The items are passed straight to
+	 * one batch-configured IndexWriter on a background thread (or the 
+	 * calling thread, if updates are not buffered), rather than being 
+	 * queued one at a time, and the index is optimized when done. 
+	 * Existing documents for the items are <b>not</b> deleted first, so 
+	 * the items should not already be in the index.</p>
+	 * 
+	 * <p>The returned callback's {@link IndexStatusCallback#getIndexResults()}
+	 * can be called at any time to check progress. UPDATE events for the 
+	 * items are published in batches once all the items have been indexed
+	 * and committed.</p>
+	 * 
+	 * @param type the index type
+	 * @param items the objects, or object IDs, to index; iterated only once
+	 * @param indexById if <em>true</em> then the items are treated as object 
+	 * IDs, otherwise they are treated as the objects themselves
+	 * @return the status callback
+	 */
+	IndexStatusCallback bulkIndex(String type, Iterable<?> items, boolean indexById);
+	
 	/**
 	 * Perform a write operation on a Lucene index.
 	 * @param type the index
@@ -267,6 +330,81 @@ public interface LuceneService {
 	 */
 	void doIndexQueryOp(String type, Query query, 
 			boolean synchronous, IndexQueryOp queryOp );
+	
+	/**
+	 * Perform a filtered query operation on a Lucene index.
+	 * @param type the index
+	 * @param query the query
+	 * @param filter the filter to restrict the query with, for example from
+	 * {@link #getFilter(String, String...)}, or <em>null</em>
+	 * @param synchronous if <em>true</em> then perform the search operation 
+	 * in FIFO order with all other search update operations on the 
+	 * specified index
+	 * @param queryOp the search callback implementation
+	 */
+	void doIndexQueryOp(String type, Query query, Filter filter, 
+			boolean synchronous, IndexQueryOp queryOp);
+	
+	/**
+	 * Perform a filtered query operation on a Lucene index, within a time
+	 * budget and with the ability to cancel it.
+	 * 
+	 * <p>If the search is stopped early the <code>queryOp</code> is still 
+	 * called, with the hits collected so far, and 
+	 * {@link QueryControl#isPartialResults()} returns <em>true</em>. For 
+	 * synchronous operations, if the time budget is used up or the query 
+	 * cancelled while still waiting for the index queue a RuntimeException 
+	 * is thrown instead.</p>
+	 * 
+	 * @param type the index
+	 * @param query the query
+	 * @param filter the filter to restrict the query with, or <em>null</em>
+	 * @param synchronous if <em>true</em> then perform the search operation 
+	 * in FIFO order with all other search update operations on the 
+	 * specified index
+	 * @param control the time budget and cancellation control, or <em>null</em>
+	 * @param queryOp the search callback implementation
+	 */
+	void doIndexQueryOp(String type, Query query, Filter filter, 
+			boolean synchronous, QueryControl control, IndexQueryOp queryOp);
+	
+	/**
+	 * Register a named filter for an index.
+	 * 
+	 * <p>The documents matching the filter query are cached as a bitset 
+	 * the first time the filter is used with an index reader, and the cache
+	 * is dropped when the reader is replaced after index updates. This makes
+	 * restrictions that are used by many queries (for example an owner ID or
+	 * a status) much cheaper than adding them to each query as clauses.</p>
+	 * 
+	 * <p>Registering a filter with the same name as an existing filter 
+	 * replaces that filter.</p>
+	 * 
+	 * @param index the index
+	 * @param name the filter name
+	 * @param query the query defining the documents the filter allows
+	 */
+	void registerFilter(String index, String name, Query query);
+	
+	/**
+	 * Remove a named filter from an index.
+	 * @param index the index
+	 * @param name the filter name
+	 */
+	void unregisterFilter(String index, String name);
+	
+	/**
+	 * Get a Filter for a set of named filters.
+	 * 
+	 * <p>If more than one name is given the returned filter allows only 
+	 * the documents allowed by all of the named filters.</p>
+	 * 
+	 * @param index the index
+	 * @param names the filter names
+	 * @return the filter
+	 * @throws IllegalArgumentException if any filter is not registered
+	 */
+	Filter getFilter(String index, String... names);
 
 	/**
 	 * Perform a search operation on a Lucene index.
@@ -354,6 +492,17 @@ public interface LuceneService {
 	void addTokenizedFuzzyQuery(BooleanQuery rootQuery, String query, 
 			String field, String type);
 	
+	/**
+	 * Create a new QueryBuilder for building a query directly, without
+	 * going through the query parser.
+	 * 
+	 * <p>The builder uses the Analyzer of the given index for analyzed text.</p>
+	 * 
+	 * @param indexType the index
+	 * @return the new builder
+	 */
+	QueryBuilder queryBuilder(String indexType);
+	
 	/**
 	 * Parse a query string into a Lucene {@link Query} object.
 	 * @param indexType the index
@@ -371,6 +520,27 @@ public interface LuceneService {
 	 */
 	Set<String> getFieldTerms(String index, String field);
 	
+	/**
+	 * Get the terms of a field starting with a prefix, most frequent first, 
+	 * for autocomplete-style suggestions.
+	 * 
+	 * <p>The field must be configured in 
+	 * {@link LucenePlugin.ExtendedIndexConfig#getSuggestFields()}. The prefix
+	 * is matched against index terms as-is, so it should already be in the
+	 * form the index's Analyzer produces (e.g. lower case). Frequency is the
+	 * number of documents containing the term. Suggestions are rebuilt in 
+	 * the background, so they may briefly lag behind index updates.</p>
+	 * 
+	 * @param index the index
+	 * @param field the field
+	 * @param prefix the term prefix, or <em>null</em> for all terms
+	 * @param maxResults the maximum number of terms to return
+	 * @return the terms, most frequent first
+	 * @throws IllegalArgumentException if the field is not configured for 
+	 * suggestions
+	 */
+	List<String> suggest(String index, String field, String prefix, int maxResults);
+	
 	/**
 	 * Low-level search method for executing a raw query against an index.
 	 * 
@@ -384,6 +554,65 @@ public interface LuceneService {
 	LuceneSearchResults search(String index, String query,  
 			int maxResults, int pageSize, int page);
 	
+	/**
+	 * Low-level search method for executing a raw query against an index, 
+	 * within a time budget and with the ability to cancel it.
+	 * 
+	 * @param index the index type to search against
+	 * @param query the query
+	 * @param maxResults the maximum number of results to return
+	 * @param pageSize if greater than 0, limite results to this many
+	 * @param page the page of results to display if <code>pageSize</code> is specified
+	 * @param control the time budget and cancellation control, or <em>null</em>
+	 * @return list of results, converted to Map ojbects
+	 * @see LuceneSearchResults#isPartialResults()
+	 */
+	LuceneSearchResults search(String index, String query,  
+			int maxResults, int pageSize, int page, QueryControl control);
+	
+	/**
+	 * Low-level search method for executing a raw query against an index, 
+	 * returning the page of results after a cursor.
+	 * 
+	 * <p>Results are in relevance order. Pass <em>null</em> for 
+	 * <code>after</code> to get the first page, then pass the 
+	 * {@link LuceneSearchResults#getNextCursor()} value of each page to 
+	 * get the following page.</p>
+	 * 
+	 * @param index the index type to search against
+	 * @param query the query
+	 * @param pageSize the maximum number of results to return
+	 * @param after the cursor to return results after, or <em>null</em>
+	 * @return list of results, converted to Map ojbects
+	 * @throws SearchCursorExpiredException if the index has changed since 
+	 * <code>after</code> was returned
+	 */
+	LuceneSearchResults search(String index, String query, int pageSize, 
+			SearchCursor after);
+	
+	/**
+	 * Low-level search method for executing a raw query against an index, 
+	 * returning the page of results after a cursor as with 
+	 * {@link #search(String, String, int, SearchCursor)}, within a time 
+	 * budget and with the ability to cancel it.
+	 * 
+	 * <p>If the search is stopped early the results have no next cursor, 
+	 * as matches not yet collected might have belonged on the page. Repeat
+	 * the search with the same cursor to get the complete page.</p>
+	 * 
+	 * @param index the index type to search against
+	 * @param query the query
+	 * @param pageSize the maximum number of results to return
+	 * @param after the cursor to return results after, or <em>null</em>
+	 * @param control the time budget and cancellation control, or <em>null</em>
+	 * @return list of results, converted to Map ojbects
+	 * @throws SearchCursorExpiredException if the index has changed since 
+	 * <code>after</code> was returned
+	 * @see LuceneSearchResults#isPartialResults()
+	 */
+	LuceneSearchResults search(String index, String query, int pageSize, 
+			SearchCursor after, QueryControl control);
+	
 	/**
 	 * Low-level search method for executing a raw query against an index, 
 	 * using a callback API for processing the results.
@@ -403,6 +632,130 @@ public interface LuceneService {
 	 */
 	SearchResults find(String index, SearchCriteria criteria);
 	
+	/**
+	 * Execute a query against an index, returning a page of search result
+	 * objects as built by the plugin supporting that index.
+	 * 
+	 * <p>The page is taken from the criteria's <code>pageSize</code> and 
+	 * <code>page</code> values. If the criteria is an 
+	 * {@link IndexSearchCriteria} the results are sorted and facet counts
+	 * computed from the Lucene field cache, without loading any stored 
+	 * documents other than those on the returned page.</p>
+	 * 
+	 * @param index the index to search
+	 * @param query the query
+	 * @param criteria the search criteria
+	 * @return the search results
+	 */
+	IndexSearchResults find(String index, Query query, SearchCriteria criteria);
+	
+	/**
+	 * Execute a query against an index as with 
+	 * {@link #find(String, Query, SearchCriteria)}, within a time budget 
+	 * and with the ability to cancel it.
+	 * 
+	 * @param index the index to search
+	 * @param query the query
+	 * @param criteria the search criteria
+	 * @param control the time budget and cancellation control, or <em>null</em>
+	 * @return the search results
+	 * @see IndexSearchResults#isPartialResults()
+	 */
+	IndexSearchResults find(String index, Query query, SearchCriteria criteria, 
+			QueryControl control);
+	
+	/**
+	 * Execute a query against an index, returning the page of search result
+	 * objects after a cursor.
+	 * 
+	 * <p>Results are in relevance order. Pass <em>null</em> for 
+	 * <code>after</code> to get the first page, then pass the 
+	 * {@link IndexSearchResults#getNextCursor()} value of each page to 
+	 * get the following page.</p>
+	 * 
+	 * @param index the index to search
+	 * @param query the query
+	 * @param pageSize the maximum number of results to return
+	 * @param after the cursor to return results after, or <em>null</em>
+	 * @return the search results
+	 * @throws SearchCursorExpiredException if the index has changed since 
+	 * <code>after</code> was returned
+	 */
+	IndexSearchResults find(String index, Query query, int pageSize, 
+			SearchCursor after);
+	
+	/**
+	 * Execute a query against an index, returning the page of search result
+	 * objects after a cursor as with 
+	 * {@link #find(String, Query, int, SearchCursor)}, within a time budget
+	 * and with the ability to cancel it.
+	 * 
+	 * <p>If the search is stopped early the results have no next cursor, 
+	 * as matches not yet collected might have belonged on the page. Repeat
+	 * the search with the same cursor to get the complete page.</p>
+	 * 
+	 * @param index the index to search
+	 * @param query the query
+	 * @param pageSize the maximum number of results to return
+	 * @param after the cursor to return results after, or <em>null</em>
+	 * @param control the time budget and cancellation control, or <em>null</em>
+	 * @return the search results
+	 * @throws SearchCursorExpiredException if the index has changed since 
+	 * <code>after</code> was returned
+	 * @see IndexSearchResults#isPartialResults()
+	 */
+	IndexSearchResults find(String index, Query query, int pageSize, 
+			SearchCursor after, QueryControl control);
+	
+	/**
+	 * Execute queries against several indexes in parallel, returning the 
+	 * best matches from all of them merged in score order.
+	 * 
+	 * <p>Each index is searched on its own thread, so the search takes about
+	 * as long as the slowest index rather than the sum of all of them. Each 
+	 * index's plugin builds up to <code>maxResults</code> match objects, and
+	 * the best <code>maxResults</code> of those are returned. Note scores 
+	 * are only roughly comparable between indexes, as each index has its own
+	 * term statistics.</p>
+	 * 
+	 * @param queries map of index to the query to execute on that index;
+	 * matches with equal scores are ordered by the map's iteration order
+	 * @param maxResults the maximum number of matches to return
+	 * @return the merged results
+	 */
+	MultiIndexSearchResults find(Map<String, Query> queries, int maxResults);
+	
+	/**
+	 * Execute queries against several indexes in parallel as with 
+	 * {@link #find(Map, int)}, within a time budget and with the ability to
+	 * cancel them.
+	 * 
+	 * @param queries map of index to the query to execute on that index
+	 * @param maxResults the maximum number of matches to return
+	 * @param control the time budget and cancellation control shared by all
+	 * the index searches, or <em>null</em>
+	 * @return the merged results
+	 * @see MultiIndexSearchResults#isPartialResults()
+	 */
+	MultiIndexSearchResults find(Map<String, Query> queries, int maxResults, 
+			QueryControl control);
+	
+	/**
+	 * Execute a query string against several indexes in parallel, as 
+	 * with {@link #find(Map, int)}.
+	 * 
+	 * <p>The query string is parsed separately for each index with 
+	 * {@link #parseQuery(String, String)}, so each index's Analyzer is 
+	 * used.</p>
+	 * 
+	 * @param indexes the indexes to search
+	 * @param query the query string
+	 * @param maxResults the maximum number of matches to return
+	 * @return the merged results
+	 */
+	MultiIndexSearchResults find(Collection<String> indexes, String query, 
+			int maxResults);
+	
 	/**
 	 * Build a List of SearchMatch objects from an existing Hits object.
 	 * @param index the index the hits are from
@@ -423,10 +776,43 @@ public interface LuceneService {
 	 */
 	void addIndexEventListener(IndexListener listener);
 	
+	/**
+	 * Add an EventListener for index operations, optionally delivering 
+	 * events to it asynchronously.
+	 * 
+	 * <p>A synchronous listener is called on the indexing thread, so a slow
+	 * listener slows down indexing. An asynchronous listener is passed 
+	 * events in batches on its own thread, from a bounded queue; if the 
+	 * listener cannot keep up events are dropped rather than holding up 
+	 * indexing.</p>
+	 * 
+	 * @param listener the listener
+	 * @param asynchronous <em>true</em> to deliver events asynchronously
+	 */
+	void addIndexEventListener(IndexListener listener, boolean asynchronous);
+	
 	/**
 	 * Remove an EventListener for index operations.
+	 * 
+	 * <p>This removes the listener whether it was added synchronously or 
+	 * asynchronously.</p>
+	 * 
 	 * @param listener the listener
 	 */
 	void removeIndexEventListener(IndexListener listener);
 	
+	/**
+	 * Get statistics on the shape of an index, for deciding when to optimize
+	 * and for capacity planning.
+	 * 
+	 * <p>The statistics are for the latest index commit, read with a new
+	 * IndexReader. Counting terms means reading the whole term dictionary, 
+	 * so this is meant for occasional monitoring rather than frequent 
+	 * polling.</p>
+	 * 
+	 * @param index the index type
+	 * @return the statistics
+	 */
+	IndexStatistics getIndexStatistics(String index);
+	
 }
@@ -27,6 +27,7 @@
 package magoffin.matt.lucene;
 
 import java.util.Collection;
+import java.util.List;
 
 /**
  * Some utility method for Lucene plugins.
@@ -36,6 +37,155 @@ import java.util.Collection;
  */
 public final class LuceneServiceUtils {
 	
+	private static final String RANGE_DELIM = " TO ";
+	
+	private static final String[] SPECIAL_WORDS = {"AND", "OR", "NOT"};
+	
+	/**
+	 * Append a query term value to a query buffer, escaping any characters
+	 * reserved by the Lucene query parser.
+	 * 
+	 * <p>This method examines the value in a single pass and writes the 
+	 * escaped value directly into <code>buf</code>. The escaping rules are:</p>
+	 * 
+	 * <ol>
+	 *   <li>A value that is already a Lucene range (<code>[a TO b]</code>) 
+	 *   is appended as-is.</li>
+	 *   <li>A value made up of only word characters that is not one of the 
+	 *   query parser's boolean operators is appended as-is.</li>
+	 *   <li>Otherwise all double quotes are removed (the query parser cannot
+	 *   handle nested quotes), any reserved characters are escaped with a 
+	 *   backslash, and the value is enclosed in quotes if it contains a space
+	 *   or is a boolean operator.</li>
+	 * </ol>
+	 * 
+	 * @param buf the query buffer to append to
+	 * @param value the term value to append
+	 */
+	public static void appendEscapedTermValue(StringBuilder buf, String value) {
+		final int len = value.length();
+		if ( isRange(value) ) {
+			buf.append(value);
+			return;
+		}
+		boolean specialWord = isSpecialWord(value);
+		boolean nonWord = false;
+		boolean space = false;
+		int numQuotes = 0;
+		for ( int i = 0; i < len; i++ ) {
+			char c = value.charAt(i);
+			if ( !isWordChar(c) ) {
+				nonWord = true;
+				if ( c == ' ' ) {
+					space = true;
+				} else if ( c == '"' ) {
+					numQuotes++;
+				}
+			}
+		}
+		if ( !nonWord && !specialWord ) {
+			buf.append(value);
+			return;
+		}
+		
+		final boolean quote = space || specialWord;
+		if ( quote ) {
+			buf.append('"');
+		}
+		if ( numQuotes == len ) {
+			// removing the quotes leaves nothing, so search for an empty 
+			// quoted string instead to prevent an empty search
+			buf.append("\\\"\\\"");
+		} else {
+			for ( int i = 0; i < len; i++ ) {
+				char c = value.charAt(i);
+				if ( c == '"' ) {
+					// work around for Lucene QueryParser bug that can't parse nested quotes
+					continue;
+				}
+				if ( c == '&' || c == '|' ) {
+					// only escape these when doubled, i.e. && and ||
+					int j = i + 1;
+					while ( j < len && value.charAt(j) == '"' ) {
+						j++;
+					}
+					if ( j < len && value.charAt(j) == c ) {
+						buf.append('\\').append(c).append(c);
+						i = j;
+					} else {
+						buf.append(c);
+					}
+					continue;
+				}
+				if ( isSpecialChar(c) ) {
+					buf.append('\\');
+				}
+				buf.append(c);
+			}
+		}
+		if ( quote ) {
+			buf.append('"');
+		}
+	}
+	
+	private static boolean isRange(String value) {
+		final int len = value.length();
+		if ( len < 1 + 1 + RANGE_DELIM.length() + 1 + 1 
+				|| value.charAt(0) != '[' || value.charAt(len - 1) != ']' ) {
+			return false;
+		}
+		for ( int i = 1; i < len - 1; i++ ) {
+			if ( isLineTerminator(value.charAt(i)) ) {
+				return false;
+			}
+		}
+		int idx = value.indexOf(RANGE_DELIM, 2);
+		return idx > 1 && idx + RANGE_DELIM.length() < len - 1;
+	}
+	
+	private static boolean isSpecialWord(String value) {
+		for ( String word : SPECIAL_WORDS ) {
+			if ( word.equals(value) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private static boolean isWordChar(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') 
+			|| (c >= '0' && c <= '9') || c == '_';
+	}
+	
+	private static boolean isLineTerminator(char c) {
+		return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+	}
+	
+	private static boolean isSpecialChar(char c) {
+		switch ( c ) {
+			case '+':
+			case '-':
+			case '!':
+			case '(':
+			case ')':
+			case '{':
+			case '}':
+			case '[':
+			case ']':
+			case '^':
+			case '"':
+			case '~':
+			case '*':
+			case '?':
+			case ':':
+			case '\\':
+				return true;
+				
+			default:
+				return false;
+		}
+	}
+	
 	/**
 	 * Publish an IndexEvent to a List of IndexListeners.
 	 * @param event the event
@@ -48,4 +198,27 @@ public final class LuceneServiceUtils {
 		}
 	}
 	
+	/**
+	 * Publish a batch of IndexEvents to a List of IndexListeners.
+	 * 
+	 * <p>A {@link BatchIndexListener} is handed the whole batch at once,
+	 * other listeners are passed each event in turn.</p>
+	 * 
+	 * @param events the events; must not be modified after calling this method
+	 * @param listeners the listeners
+	 */
+	public static final void publishIndexEvents(List<IndexEvent> events, 
+			Collection<IndexListener> listeners) {
+		if ( listeners == null || events == null || events.isEmpty() ) return;
+		for ( IndexListener listener : listeners ) {
+			if ( listener instanceof BatchIndexListener ) {
+				((BatchIndexListener)listener).onIndexEvents(events);
+			} else {
+				for ( IndexEvent event : events ) {
+					listener.onIndexEvent(event);
+				}
+			}
+		}
+	}
+	
 }
@@ -0,0 +1,101 @@
+/* ===================================================================
+ * MultiIndexSearchResults.java
+ *
+ * Created Oct 19, 2026 3:34:52 PM
+ *
+ * Copyright (c) 2026 Matt Magoffin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.lucene;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The merged results of searching several indexes with 
+ * {@link LuceneService#find(Map, int)}.
+ *
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class MultiIndexSearchResults {
+
+	private final List<IndexMatch> matches;
+	private final Map<String, Integer> indexTotalMatches;
+	private final int totalMatches;
+	private final boolean partialResults;
+
+	/**
+	 * Construct with values.
+	 * 
+	 * @param matches the merged matches
+	 * @param indexTotalMatches the total number of matches found in each index
+	 * @param partialResults <em>true</em> if any index search was stopped early
+	 */
+	public MultiIndexSearchResults(List<IndexMatch> matches, 
+			Map<String, Integer> indexTotalMatches, boolean partialResults) {
+		this.matches = Collections.unmodifiableList(matches);
+		this.indexTotalMatches = Collections.unmodifiableMap(indexTotalMatches);
+		int total = 0;
+		for ( Integer count : indexTotalMatches.values() ) {
+			total += count;
+		}
+		this.totalMatches = total;
+		this.partialResults = partialResults;
+	}
+
+	/**
+	 * Get the merged matches, in descending score order.
+	 * @return the matches
+	 */
+	public List<IndexMatch> getMatches() {
+		return matches;
+	}
+
+	/**
+	 * Get the total number of matches found in each index, which may be 
+	 * more than the number of matches returned.
+	 * @return map of index to total matches, in the order searched
+	 */
+	public Map<String, Integer> getIndexTotalMatches() {
+		return indexTotalMatches;
+	}
+
+	/**
+	 * Get the total number of matches found in all indexes.
+	 * @return the total matches
+	 */
+	public int getTotalMatches() {
+		return totalMatches;
+	}
+
+	/**
+	 * Return <em>true</em> if any index search was stopped early by a time 
+	 * limit or cancellation, so these results only include some of the 
+	 * matches.
+	 * @return boolean
+	 */
+	public boolean isPartialResults() {
+		return partialResults;
+	}
+
+}
@@ -0,0 +1,298 @@
+/* ===================================================================
+ * QueryBuilder.java
+ *
+ * Created Oct 19, 2026 9:12:40 AM
+ *
+ * Copyright (c) 2026 Matt Magoffin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.lucene;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.Token;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreRangeQuery;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.springframework.util.StringUtils;
+
+/**
+ * Builder for Lucene {@link Query} objects, as an alternative to building
+ * query strings with {@link LuceneService#appendTerm(StringBuilder, String, String, boolean, boolean)}
+ * and then parsing them with {@link LuceneService#parseQuery(String, String)}.
+ *
+ * <p>The query is built directly from Lucene query objects, so no query
+ * parser escaping is needed. Only the {@link #text(String, String, boolean, boolean)}
+ * and {@link #phrase(String, String, boolean, boolean)} methods pass their
+ * values through the index's Analyzer; all other methods treat their values as
+ * exact index terms. Like <code>appendTerm()</code>, values without any text
+ * are ignored.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class QueryBuilder {
+
+	private final Analyzer analyzer;
+	private final BooleanQuery query = new BooleanQuery();
+
+	/**
+	 * Construct with an Analyzer.
+	 *
+	 * @param analyzer the Analyzer to use for analyzed text
+	 */
+	public QueryBuilder(Analyzer analyzer) {
+		this.analyzer = analyzer;
+	}
+
+	/**
+	 * Add an exact term query.
+	 * 
+	 * <p>Leading and trailing whitespace is trimmed from the value, as with
+	 * {@link #terms(String, List, String, boolean)}.</p>
+	 *
+	 * @param field the index field
+	 * @param value the index field value
+	 * @param required is the term required?
+	 * @param prohibited is the term prohibited?
+	 * @return this builder
+	 */
+	public QueryBuilder term(String field, Object value, boolean required,
+			boolean prohibited) {
+		String text = value == null ? null : value.toString().trim();
+		if ( !StringUtils.hasText(text) ) {
+			return this;
+		}
+		query.add(new TermQuery(new Term(field, text)), occur(required, prohibited));
+		return this;
+	}
+
+	/**
+	 * Add a group of exact term queries.
+	 *
+	 * @param field the index field
+	 * @param values the index field values
+	 * @param booleanOp the boolean operation to join the terms with
+	 * (i.e. {@link LuceneService#AND} or {@link LuceneService#OR}).
+	 * @param required is the group required?
+	 * @return this builder
+	 */
+	public QueryBuilder terms(String field, List<?> values, String booleanOp,
+			boolean required) {
+		Occur termOccur = LuceneService.AND.equals(booleanOp) ? Occur.MUST : Occur.SHOULD;
+		BooleanQuery group = new BooleanQuery();
+		for ( Object o : values ) {
+			if ( o == null ) {
+				continue;
+			}
+			String text = o.toString().trim();
+			if ( StringUtils.hasText(text) ) {
+				group.add(new TermQuery(new Term(field, text)), termOccur);
+			}
+		}
+		add(group, occur(required, false));
+		return this;
+	}
+
+	/**
+	 * Add a query for analyzed text, matching any of the analyzed tokens.
+	 *
+	 * @param field the index field
+	 * @param text the text to analyze
+	 * @param required is the text required?
+	 * @param prohibited is the text prohibited?
+	 * @return this builder
+	 */
+	public QueryBuilder text(String field, String text, boolean required,
+			boolean prohibited) {
+		if ( !StringUtils.hasText(text) ) {
+			return this;
+		}
+		BooleanQuery group = new BooleanQuery();
+		for ( Token token : analyze(field, text) ) {
+			group.add(new TermQuery(new Term(field, token.term())), Occur.SHOULD);
+		}
+		add(group, occur(required, prohibited));
+		return this;
+	}
+
+	/**
+	 * Add a phrase query for analyzed text.
+	 *
+	 * @param field the index field
+	 * @param text the text to analyze
+	 * @param required is the phrase required?
+	 * @param prohibited is the phrase prohibited?
+	 * @return this builder
+	 */
+	public QueryBuilder phrase(String field, String text, boolean required,
+			boolean prohibited) {
+		if ( !StringUtils.hasText(text) ) {
+			return this;
+		}
+		List<Token> tokens = analyze(field, text);
+		if ( tokens.size() < 1 ) {
+			return this;
+		}
+		if ( tokens.size() == 1 ) {
+			query.add(new TermQuery(new Term(field, tokens.get(0).term())),
+					occur(required, prohibited));
+			return this;
+		}
+		PhraseQuery phrase = new PhraseQuery();
+		int position = -1;
+		for ( Token token : tokens ) {
+			position += token.getPositionIncrement();
+			phrase.add(new Term(field, token.term()), position);
+		}
+		query.add(phrase, occur(required, prohibited));
+		return this;
+	}
+
+	/**
+	 * Add a range query.
+	 *
+	 * <p>The range is evaluated as a constant-score filter, so it is not
+	 * subject to the {@link BooleanQuery#getMaxClauseCount()} limit no matter
+	 * how many terms fall within the range.</p>
+	 *
+	 * @param field the index field
+	 * @param lower the lower bound, or <em>null</em> for no lower bound
+	 * @param upper the upper bound, or <em>null</em> for no upper bound
+	 * @param inclusive <em>true</em> if the bounds are inclusive
+	 * @param required is the range required?
+	 * @return this builder
+	 */
+	public QueryBuilder range(String field, String lower, String upper,
+			boolean inclusive, boolean required) {
+		if ( !StringUtils.hasText(lower) ) {
+			lower = null;
+		}
+		if ( !StringUtils.hasText(upper) ) {
+			upper = null;
+		}
+		if ( lower == null && upper == null ) {
+			return this;
+		}
+		query.add(new ConstantScoreRangeQuery(field, lower, upper,
+				inclusive && lower != null, inclusive && upper != null),
+				occur(required, false));
+		return this;
+	}
+
+	/**
+	 * Add a prefix query.
+	 *
+	 * @param field the index field
+	 * @param prefix the term prefix
+	 * @param required is the prefix required?
+	 * @param prohibited is the prefix prohibited?
+	 * @return this builder
+	 */
+	public QueryBuilder prefix(String field, String prefix, boolean required,
+			boolean prohibited) {
+		if ( !StringUtils.hasText(prefix) ) {
+			return this;
+		}
+		query.add(new PrefixQuery(new Term(field, prefix)), occur(required, prohibited));
+		return this;
+	}
+
+	/**
+	 * Add an arbitrary query, for example one from a nested QueryBuilder.
+	 *
+	 * @param subQuery the query to add
+	 * @param required is the query required?
+	 * @param prohibited is the query prohibited?
+	 * @return this builder
+	 */
+	public QueryBuilder query(Query subQuery, boolean required, boolean prohibited) {
+		if ( subQuery != null ) {
+			query.add(subQuery, occur(required, prohibited));
+		}
+		return this;
+	}
+
+	/**
+	 * Return <em>true</em> if nothing has been added to the query.
+	 * @return boolean
+	 */
+	public boolean isEmpty() {
+		return query.clauses().isEmpty();
+	}
+
+	/**
+	 * Get the built query.
+	 * @return the query
+	 */
+	public Query build() {
+		return query;
+	}
+
+	private void add(BooleanQuery group, Occur occur) {
+		if ( group.clauses().isEmpty() ) {
+			return;
+		}
+		if ( group.clauses().size() == 1 ) {
+			// collapse single-clause group
+			query.add(group.getClauses()[0].getQuery(), occur);
+			return;
+		}
+		query.add(group, occur);
+	}
+
+	private Occur occur(boolean required, boolean prohibited) {
+		if ( required ) {
+			return Occur.MUST;
+		}
+		if ( prohibited ) {
+			return Occur.MUST_NOT;
+		}
+		return Occur.SHOULD;
+	}
+
+	private List<Token> analyze(String field, String text) {
+		List<Token> tokens = new ArrayList<Token>();
+		try {
+			TokenStream stream = analyzer.reusableTokenStream(field, new StringReader(text));
+			Token reusableToken = new Token();
+			for ( Token token = stream.next(reusableToken); token != null;
+					token = stream.next(reusableToken) ) {
+				tokens.add((Token)token.clone());
+			}
+		} catch ( IOException e ) {
+			throw new RuntimeException("Unable to tokenize query string", e);
+		}
+		return tokens;
+	}
+
+}
@@ -0,0 +1,120 @@
+/* ===================================================================
+ * QueryControl.java
+ *
+ * Created Oct 19, 2026 4:05:44 PM
+ *
+ * Copyright (c) 2026 Matt Magoffin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.lucene;
+
+/**
+ * Time budget and cancellation control for a search.
+ * 
+ * <p>The time budget starts when this object is created, so it includes
+ * any time spent waiting for a synchronous search to be run by the index
+ * queue. When the budget is used up, or {@link #cancel()} is called from 
+ * another thread, hit collection stops and the search completes with the 
+ * hits collected so far; {@link #isPartialResults()} then returns 
+ * <em>true</em>. Note that query rewriting (for example expanding a 
+ * fuzzy or wildcard query into terms) happens before hit collection and 
+ * cannot be stopped part way.</p>
+ * 
+ * <p>A QueryControl should be used for one search only, or one call to
+ * {@link LuceneService#find(java.util.Map, int, QueryControl)}.</p>
+ *
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class QueryControl {
+
+	private final long timeoutMs;
+	private final long deadline;
+	private volatile boolean cancelled = false;
+	private volatile boolean partialResults = false;
+
+	/**
+	 * Construct with a time budget.
+	 * @param timeoutMs the maximum number of milliseconds the search may
+	 * take, or <code>0</code> for no limit
+	 */
+	public QueryControl(long timeoutMs) {
+		this.timeoutMs = timeoutMs;
+		this.deadline = (timeoutMs > 0 ? System.currentTimeMillis() + timeoutMs : 0);
+	}
+
+	/**
+	 * Cancel the search.
+	 * 
+	 * <p>This may be called from any thread.</p>
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * @return <em>true</em> if {@link #cancel()} has been called
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * @return the time budget, in milliseconds, or <code>0</code> for no limit
+	 */
+	public long getTimeoutMs() {
+		return timeoutMs;
+	}
+
+	/**
+	 * Get the number of milliseconds left in the time budget.
+	 * @return the remaining milliseconds, which may be negative, or 
+	 * {@link Long#MAX_VALUE} if there is no limit
+	 */
+	public long getRemainingMs() {
+		if ( deadline == 0 ) {
+			return Long.MAX_VALUE;
+		}
+		return deadline - System.currentTimeMillis();
+	}
+
+	/**
+	 * @return <em>true</em> if the search was stopped early, so only some 
+	 * of the matches were found
+	 */
+	public boolean isPartialResults() {
+		return partialResults;
+	}
+
+	/**
+	 * Flag the search as stopped early.
+	 */
+	void setPartialResults() {
+		this.partialResults = true;
+	}
+
+	@Override
+	public String toString() {
+		return "QueryControl{timeoutMs=" +timeoutMs +",cancelled=" +cancelled 
+			+",partial=" +partialResults +"}";
+	}
+
+}
@@ -26,30 +26,49 @@ package magoffin.matt.lucene;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.io.StringWriter;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.lucene.analysis.Token;
 import org.apache.lucene.analysis.Tokenizer;
-import org.springframework.util.FileCopyUtils;
 
 /**
- * Filter a stream into a single token of only digits.
+ * Filter a stream into a single token, replacing all matches of a regular
+ * expression with a replacement string.
  * 
- * <p>This class is not thread-safe. It is also geared for small 
- * input streams, as it uses a regular expression to replace non-digits 
- * with an empty string.</p>
+ * <p>This class is not thread-safe. The regular expression is compiled
+ * once when it is set, and the input is read into a character buffer that
+ * is reused for every stream this tokenizer is reset with. The whole input
+ * is still buffered, as a match may span any part of it.</p>
  * 
  * <p>The configurable properties of this class are:</p>
  * 
+ * <dl>
+ *   <dt>regexp</dt>
+ *   <dd>The regular expression to replace. Defaults to <code>\W</code>.</dd>
+ *   
+ *   <dt>replace</dt>
+ *   <dd>The replacement string, which may refer to captured groups as
+ *   in {@link Matcher#appendReplacement(StringBuffer, String)}. Defaults 
+ *   to an empty string.</dd>
+ * </dl>
+ * 
  * @author matt.magoffin
  * @version $Revision: 1.1 $ $Date: 2006/07/10 04:22:34 $
  */
 public class RegexpReplaceTokenizer extends Tokenizer {
 	
+	private static final int IO_BUFFER_SIZE = 256;
+	
 	private boolean complete = false;
-	private String regexp = "\\W";
+	private Pattern pattern = Pattern.compile("\\W");
 	private String replace = "";
 	
+	private Matcher matcher = null;
+	private char[] literalReplace = new char[0];
+	private final CharArraySequence chars = new CharArraySequence(IO_BUFFER_SIZE);
+	private StringBuffer result = null;
+	
 	/**
 	 * Constructor with a Reader.
 	 * @param input the input reader
@@ -71,34 +90,91 @@ public class RegexpReplaceTokenizer extends Tokenizer {
 	}
 
 	@Override
-	public Token next() throws IOException {
+	public Token next(Token reusableToken) throws IOException {
 		if ( complete ) {
 			return null;
 		}
 		
 		// read in entire string
-		StringWriter out = new StringWriter();
-		FileCopyUtils.copy(this.input, out);
-		int end = out.getBuffer().length();
-		String result = out.toString().replaceAll(this.regexp, this.replace);
+		final int end = chars.read(input);
+		
+		if ( matcher == null ) {
+			matcher = pattern.matcher(chars);
+		} else {
+			matcher.reset(chars);
+		}
+		reusableToken.clear();
+		if ( literalReplace == null ) {
+			// replacement has group references, so let the Matcher expand them
+			if ( result == null ) {
+				result = new StringBuffer();
+			}
+			result.setLength(0);
+			while ( matcher.find() ) {
+				matcher.appendReplacement(result, this.replace);
+			}
+			matcher.appendTail(result);
+			final int length = result.length();
+			char[] term = reusableToken.resizeTermBuffer(length);
+			result.getChars(0, length, term, 0);
+			reusableToken.setTermLength(length);
+		} else {
+			// copy straight from the input buffer into the token
+			char[] term = reusableToken.termBuffer();
+			int length = 0;
+			int last = 0;
+			while ( matcher.find() ) {
+				term = append(reusableToken, term, length, chars.buffer(), last, 
+						matcher.start() - last);
+				length += matcher.start() - last;
+				term = append(reusableToken, term, length, literalReplace, 0, 
+						literalReplace.length);
+				length += literalReplace.length;
+				last = matcher.end();
+			}
+			term = append(reusableToken, term, length, chars.buffer(), last, end - last);
+			length += end - last;
+			reusableToken.setTermLength(length);
+		}
 		
 		complete = true;
-		char[] resultChar = result.toCharArray();
-		return new Token(resultChar, 0, resultChar.length, 0, end);
+		reusableToken.setStartOffset(0);
+		reusableToken.setEndOffset(end);
+		reusableToken.setType(Token.DEFAULT_TYPE);
+		return reusableToken;
+	}
+	
+	private char[] append(Token token, char[] term, int termLength, 
+			char[] src, int offset, int length) {
+		if ( length < 1 ) {
+			return term;
+		}
+		if ( termLength + length > term.length ) {
+			term = token.resizeTermBuffer(termLength + length);
+		}
+		System.arraycopy(src, offset, term, termLength, length);
+		return term;
+	}
+	
+	@Override
+	public void reset(Reader reader) throws IOException {
+		super.reset(reader);
+		complete = false;
 	}
 	
 	/**
 	 * @return Returns the regexp.
 	 */
 	public String getRegexp() {
-		return regexp;
+		return pattern.pattern();
 	}
 	
 	/**
 	 * @param regexp The regexp to set.
 	 */
 	public void setRegexp(String regexp) {
-		this.regexp = regexp;
+		this.pattern = Pattern.compile(regexp);
+		this.matcher = null;
 	}
 	
 	/**
@@ -113,6 +189,8 @@ public class RegexpReplaceTokenizer extends Tokenizer {
 	 */
 	public void setReplace(String replace) {
 		this.replace = replace;
+		this.literalReplace = (replace.indexOf('$') < 0 && replace.indexOf('\\') < 0)
+			? replace.toCharArray() : null;
 	}
 	
 }
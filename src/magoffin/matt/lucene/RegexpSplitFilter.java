@@ -25,8 +25,6 @@
 package magoffin.matt.lucene;
 
 import java.io.IOException;
-import java.util.LinkedList;
-import java.util.Queue;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -40,20 +38,38 @@ import org.apache.lucene.analysis.TokenStream;
  * 
  * <p>This can be used to tokenize email addresses as words, for example.</p>
  * 
+ * <p>When the regular expression is a simple set of single characters, 
+ * such as the default <code>[@.]</code>, the term buffer of each token is 
+ * scanned directly for those characters and no Matcher is used. Tokens 
+ * without any split characters are passed through untouched. Empty 
+ * segments (for example between two adjacent split characters) are not 
+ * returned as tokens.</p>
+ * 
  * @author matt.magoffin
  * @version $Revision: 1.1 $ $Date: 2006/07/10 04:22:34 $
  */
 public class RegexpSplitFilter extends TokenFilter {
 	
-	private Pattern pattern = Pattern.compile("[@.]");
-	private int start = 0;
-	private Queue<String> splitQueue = new LinkedList<String>();
+	private static final String DEFAULT_REGEXP = "[@.]";
+	
+	private final Pattern pattern;
+	private final char[] splitChars;
+	private final CharArraySequence chars = new CharArraySequence(64);
+	private Matcher matcher = null;
+	
+	// split state of the current token: pos is -1 when no token is pending
+	private int pos = -1;
+	private int baseOffset = 0;
+	private int positionIncrement = 0;
+	private boolean emitted = false;
+	private int segmentStart = 0;
+	private int segmentEnd = 0;
 
 	/**
 	 * @param input the token stream input
 	 */
 	public RegexpSplitFilter(TokenStream input) {
-		super(input);
+		this(input, DEFAULT_REGEXP);
 	}
 	
 	/**
@@ -64,39 +80,165 @@ public class RegexpSplitFilter extends TokenFilter {
 	public RegexpSplitFilter(TokenStream input, String regexp) {
 		super(input);
 		this.pattern = Pattern.compile(regexp);
+		this.splitChars = simpleSplitChars(regexp);
 	}
 
 	@Override
-	public Token next() throws IOException {
-		if ( splitQueue.size() > 0 ) {
-			String next = splitQueue.remove();
-			this.start++;
-			char[] nextChar = next.toCharArray();
-			Token t = new Token(nextChar, 0, nextChar.length, this.start, this.start + next.length());
-			this.start += next.length();
-			return t;
+	public Token next(Token reusableToken) throws IOException {
+		while ( true ) {
+			if ( pos >= 0 ) {
+				if ( nextSegment() ) {
+					reusableToken.reinit(chars.buffer(), segmentStart, 
+							segmentEnd - segmentStart, baseOffset + segmentStart, 
+							baseOffset + segmentEnd);
+					reusableToken.setPositionIncrement(positionIncrement);
+					positionIncrement = 1;
+					emitted = true;
+					return reusableToken;
+				}
+				if ( emitted ) {
+					positionIncrement = 0;
+				}
+				pos = -1;
+			}
+			
+			Token t = input.next(reusableToken);
+			if ( t == null ) {
+				return null;
+			}
+			if ( !startSplit(t) ) {
+				if ( positionIncrement > 0 ) {
+					// carry over increment from tokens that were all split characters
+					t.setPositionIncrement(positionIncrement + t.getPositionIncrement());
+				}
+				positionIncrement = 0;
+				return t;
+			}
+		}
+	}
+
+	/**
+	 * Test if a token needs splitting, and if so copy its term into
+	 * the split buffer and set up the split state.
+	 */
+	private boolean startSplit(Token t) {
+		final char[] term = t.termBuffer();
+		final int len = t.termLength();
+		if ( splitChars != null ) {
+			int i = 0;
+			while ( i < len && !isSplitChar(term[i]) ) {
+				i++;
+			}
+			if ( i == len ) {
+				return false;
+			}
+			chars.set(term, len);
+		} else {
+			chars.set(term, len);
+			if ( matcher == null ) {
+				matcher = pattern.matcher(chars);
+			} else {
+				matcher.reset();
+			}
+			if ( !matcher.find() ) {
+				return false;
+			}
+			matcher.reset();
+		}
+		pos = 0;
+		emitted = false;
+		baseOffset = t.startOffset();
+		positionIncrement += t.getPositionIncrement();
+		return true;
+	}
+
+	/**
+	 * Find the next non-empty segment of the split buffer, setting 
+	 * segmentStart and segmentEnd.
+	 */
+	private boolean nextSegment() {
+		final int len = chars.length();
+		final char[] buf = chars.buffer();
+		while ( pos < len ) {
+			int start = pos;
+			int end;
+			if ( splitChars != null ) {
+				end = start;
+				while ( end < len && !isSplitChar(buf[end]) ) {
+					end++;
+				}
+				pos = end + 1;
+			} else if ( matcher.find() ) {
+				end = matcher.start();
+				pos = matcher.end();
+			} else {
+				end = len;
+				pos = len;
+			}
+			if ( end > start ) {
+				segmentStart = start;
+				segmentEnd = end;
+				return true;
+			}
 		}
+		return false;
+	}
+
+	private boolean isSplitChar(char c) {
+		for ( int i = 0; i < splitChars.length; i++ ) {
+			if ( splitChars[i] == c ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Get the set of characters a regular expression matches, if it is 
+	 * a single (possibly escaped) literal character or a simple character
+	 * class of literal characters like <code>[@.]</code>.
+	 * 
+	 * @param regexp the regular expression
+	 * @return the characters, or <em>null</em> if the expression is not 
+	 * that simple
+	 */
+	private static char[] simpleSplitChars(String regexp) {
+		final int len = regexp.length();
+		if ( len == 1 && ".$|()[]{}^?*+\\".indexOf(regexp.charAt(0)) < 0 ) {
+			return new char[] {regexp.charAt(0)};
+		}
+		if ( len == 2 && regexp.charAt(0) == '\\' 
+				&& !Character.isLetterOrDigit(regexp.charAt(1)) ) {
+			return new char[] {regexp.charAt(1)};
+		}
+		if ( len < 3 || regexp.charAt(0) != '[' || regexp.charAt(len - 1) != ']' 
+				|| regexp.charAt(1) == '^' ) {
+			return null;
+		}
+		StringBuilder buf = new StringBuilder();
+		for ( int i = 1; i < len - 1; i++ ) {
+			char c = regexp.charAt(i);
+			if ( c == '\\' ) {
+				i++;
+				if ( i == len - 1 || Character.isLetterOrDigit(regexp.charAt(i)) ) {
+					return null;
+				}
+				c = regexp.charAt(i);
+			} else if ( c == '-' || c == '[' || c == ']' || c == '&' ) {
+				return null;
+			}
+			buf.append(c);
+		}
+		char[] result = new char[buf.length()];
+		buf.getChars(0, result.length, result, 0);
+		return result;
+	}
 
-		Token reusableToken = new Token();
-	    Token t = input.next(reusableToken);
-	    if (t == null) {
-	    	return null;
-	    }
-	    
-	    String text = t.term();
-	    Matcher matcher = pattern.matcher(text);
-	    if ( !matcher.find() ) {
-	    	return t;
-	    }
-	    
-	    // found pattern
-	    String[] split = pattern.split(text);
-	    for ( int i = 1; i < split.length; i++ ) {
-	    	splitQueue.offer(split[i]);
-	    }
-	    this.start = t.startOffset() + split[0].length();
-	    char[] splitChar = split[0].toCharArray();
-	    return new Token(splitChar, 0, splitChar.length, t.startOffset(), this.start);
+	@Override
+	public void reset() throws IOException {
+		super.reset();
+		pos = -1;
+		positionIncrement = 0;
 	}
 
 }
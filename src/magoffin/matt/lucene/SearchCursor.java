@@ -0,0 +1,105 @@
+/* ===================================================================
+ * SearchCursor.java
+ *
+ * Created Oct 19, 2026 2:31:12 PM
+ *
+ * Copyright (c) 2026 Matt Magoffin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.lucene;
+
+import java.io.Serializable;
+
+/**
+ * A position in a relevance-ordered list of search results, for fetching 
+ * the page of results after that position.
+ * 
+ * <p>Paging with a cursor costs the same for every page, as only the hits
+ * after the cursor are collected. The cursor refers to a Lucene document 
+ * number, which is only stable while the index is not changed; if the 
+ * index reader version has changed since the cursor was created, paging 
+ * from it fails with a {@link SearchCursorExpiredException} rather than 
+ * skipping or repeating results.</p>
+ *
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public final class SearchCursor implements Serializable {
+
+	private static final long serialVersionUID = -3127734450418851720L;
+
+	private final float score;
+	private final int doc;
+	private final long readerVersion;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param score the score of the last result returned
+	 * @param doc the document number of the last result returned
+	 * @param readerVersion the version of the index reader the results came from
+	 */
+	public SearchCursor(float score, int doc, long readerVersion) {
+		this.score = score;
+		this.doc = doc;
+		this.readerVersion = readerVersion;
+	}
+
+	/**
+	 * Test if a hit comes after this cursor in relevance order, that is 
+	 * by descending score and then ascending document number.
+	 * 
+	 * @param hitDoc the hit document number
+	 * @param hitScore the hit score
+	 * @return <em>true</em> if the hit is after this cursor
+	 */
+	public boolean precedes(int hitDoc, float hitScore) {
+		return hitScore < score || (hitScore == score && hitDoc > doc);
+	}
+
+	/**
+	 * @return the score
+	 */
+	public float getScore() {
+		return score;
+	}
+
+	/**
+	 * @return the doc
+	 */
+	public int getDoc() {
+		return doc;
+	}
+
+	/**
+	 * @return the readerVersion
+	 */
+	public long getReaderVersion() {
+		return readerVersion;
+	}
+
+	@Override
+	public String toString() {
+		return "SearchCursor{score=" +score +",doc=" +doc 
+			+",readerVersion=" +readerVersion +"}";
+	}
+
+}
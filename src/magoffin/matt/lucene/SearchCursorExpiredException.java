@@ -0,0 +1,78 @@
+/* ===================================================================
+ * SearchCursorExpiredException.java
+ *
+ * Created Oct 19, 2026 5:12:40 PM
+ *
+ * Copyright (c) 2026 Matt Magoffin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+
+package magoffin.matt.lucene;
+
+/**
+ * Thrown when paging with a {@link SearchCursor} created from an older 
+ * version of an index.
+ * 
+ * <p>A cursor refers to a Lucene document number, which can change when 
+ * the index changes, so paging from it could skip or repeat results. 
+ * Search again without a cursor to start from the first page of the 
+ * current index.</p>
+ *
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public class SearchCursorExpiredException extends IllegalStateException {
+
+	private static final long serialVersionUID = 6512890733147280921L;
+
+	private final SearchCursor cursor;
+	private final long readerVersion;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param index the index searched
+	 * @param cursor the expired cursor
+	 * @param readerVersion the current index reader version
+	 */
+	public SearchCursorExpiredException(String index, SearchCursor cursor, 
+			long readerVersion) {
+		super("Search cursor " +cursor +" expired, index [" +index 
+				+"] is now at version " +readerVersion);
+		this.cursor = cursor;
+		this.readerVersion = readerVersion;
+	}
+
+	/**
+	 * @return the expired cursor
+	 */
+	public SearchCursor getCursor() {
+		return cursor;
+	}
+
+	/**
+	 * @return the current index reader version
+	 */
+	public long getReaderVersion() {
+		return readerVersion;
+	}
+
+}
@@ -0,0 +1,288 @@
+/* ===================================================================
+ * TermSuggester.java
+ *
+ * Created Oct 19, 2026 5:31:07 PM
+ *
+ * Copyright (c) 2026 Matt Magoffin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.lucene;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermEnum;
+
+/**
+ * An in-memory suggestion index of the terms of one index field, for
+ * finding the most frequent terms starting with a prefix.
+ * 
+ * <p>Terms are kept in a sorted array along with their document frequencies,
+ * so all terms with a given prefix form one contiguous range found by binary 
+ * search. A tree of range maximums over the frequencies then yields the 
+ * top <em>K</em> terms of that range in <em>O(K log n)</em> time, without
+ * looking at the rest of the range.</p>
+ * 
+ * <p>This class is immutable and thread-safe.</p>
+ *
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+final class TermSuggester {
+
+	private final String field;
+	private final String[] terms;
+	private final int[] freqs;
+	private final int[] tree; // index of max freq, per node; leaves start at size
+	private final int size;
+	private final long buildTimeMs;
+
+	private TermSuggester(String field, String[] terms, int[] freqs, long buildTimeMs) {
+		this.field = field;
+		this.terms = terms;
+		this.freqs = freqs;
+		this.buildTimeMs = buildTimeMs;
+		int n = 1;
+		while ( n < terms.length ) {
+			n <<= 1;
+		}
+		this.size = n;
+		this.tree = new int[2 * n];
+		Arrays.fill(tree, -1);
+		for ( int i = 0; i < terms.length; i++ ) {
+			tree[n + i] = i;
+		}
+		for ( int i = n - 1; i > 0; i-- ) {
+			tree[i] = better(tree[2 * i], tree[2 * i + 1]);
+		}
+	}
+
+	/**
+	 * Build a suggester for one field of an IndexReader.
+	 * 
+	 * @param reader the reader
+	 * @param field the field
+	 * @return the new suggester
+	 * @throws IOException if an IO error occurs
+	 */
+	static TermSuggester build(IndexReader reader, String field) throws IOException {
+		long start = System.currentTimeMillis();
+		List<String> termList = new ArrayList<String>();
+		int[] freqList = new int[64];
+		TermEnum termEnum = reader.terms(new Term(field, ""));
+		try {
+			do {
+				Term t = termEnum.term();
+				if ( t == null || !field.equals(t.field()) ) {
+					break;
+				}
+				int docFreq = termEnum.docFreq();
+				if ( docFreq < 1 ) {
+					continue;
+				}
+				if ( termList.size() == freqList.length ) {
+					int[] tmp = new int[freqList.length * 2];
+					System.arraycopy(freqList, 0, tmp, 0, freqList.length);
+					freqList = tmp;
+				}
+				freqList[termList.size()] = docFreq;
+				termList.add(t.text());
+			} while ( termEnum.next() );
+		} finally {
+			termEnum.close();
+		}
+		int[] freqs = new int[termList.size()];
+		System.arraycopy(freqList, 0, freqs, 0, freqs.length);
+		return new TermSuggester(field, termList.toArray(new String[termList.size()]), 
+				freqs, System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Get the most frequent terms starting with a prefix.
+	 * 
+	 * @param prefix the prefix
+	 * @param max the maximum number of terms to return
+	 * @return the terms, most frequent first (ties in term order)
+	 */
+	List<String> suggest(String prefix, int max) {
+		int lo = lowerBound(prefix);
+		int hi = lo;
+		if ( prefix.length() > 0 ) {
+			int a = lo;
+			int b = terms.length;
+			while ( a < b ) {
+				int mid = (a + b) >>> 1;
+				if ( terms[mid].startsWith(prefix) ) {
+					a = mid + 1;
+				} else {
+					b = mid;
+				}
+			}
+			hi = a;
+		} else {
+			hi = terms.length;
+		}
+		if ( lo >= hi || max < 1 ) {
+			return new ArrayList<String>(0);
+		}
+		List<String> results = new ArrayList<String>(Math.min(max, hi - lo));
+		PriorityQueue<Range> queue = new PriorityQueue<Range>();
+		queue.add(new Range(lo, hi, maxIndex(lo, hi)));
+		while ( !queue.isEmpty() && results.size() < max ) {
+			Range r = queue.poll();
+			results.add(terms[r.best]);
+			if ( r.lo < r.best ) {
+				queue.add(new Range(r.lo, r.best, maxIndex(r.lo, r.best)));
+			}
+			if ( r.best + 1 < r.hi ) {
+				queue.add(new Range(r.best + 1, r.hi, maxIndex(r.best + 1, r.hi)));
+			}
+		}
+		return results;
+	}
+
+	private int lowerBound(String prefix) {
+		int a = 0;
+		int b = terms.length;
+		while ( a < b ) {
+			int mid = (a + b) >>> 1;
+			if ( terms[mid].compareTo(prefix) < 0 ) {
+				a = mid + 1;
+			} else {
+				b = mid;
+			}
+		}
+		return a;
+	}
+
+	// index of the highest frequency term in [lo, hi)
+	private int maxIndex(int lo, int hi) {
+		int best = -1;
+		for ( int l = lo + size, h = hi + size; l < h; l >>= 1, h >>= 1 ) {
+			if ( (l & 1) == 1 ) {
+				best = better(best, tree[l++]);
+			}
+			if ( (h & 1) == 1 ) {
+				best = better(best, tree[--h]);
+			}
+		}
+		return best;
+	}
+
+	private int better(int a, int b) {
+		if ( a < 0 ) {
+			return b;
+		}
+		if ( b < 0 ) {
+			return a;
+		}
+		if ( freqs[a] != freqs[b] ) {
+			return freqs[a] > freqs[b] ? a : b;
+		}
+		return a < b ? a : b;
+	}
+
+	private final class Range implements Comparable<Range> {
+		private final int lo;
+		private final int hi;
+		private final int best;
+
+		private Range(int lo, int hi, int best) {
+			this.lo = lo;
+			this.hi = hi;
+			this.best = best;
+		}
+
+		@Override
+		public int compareTo(Range o) {
+			if ( freqs[best] != freqs[o.best] ) {
+				return freqs[best] > freqs[o.best] ? -1 : 1;
+			}
+			return best < o.best ? -1 : (best == o.best ? 0 : 1);
+		}
+	}
+
+	/**
+	 * @return the number of terms in the suggester
+	 */
+	int size() {
+		return terms.length;
+	}
+
+	@Override
+	public String toString() {
+		return "TermSuggester{" +field +": " +terms.length +" terms, built in "
+			+buildTimeMs +"ms}";
+	}
+
+	/**
+	 * The current TermSuggester for a field, rebuilt when the index changes.
+	 * 
+	 * <p>The previous suggester keeps serving suggestions while a new one
+	 * is built.</p>
+	 */
+	static final class Cache {
+		private final String field;
+		private long version = -1;
+		private volatile TermSuggester suggester = null;
+
+		/**
+		 * Construct for a field.
+		 * @param field the field
+		 */
+		Cache(String field) {
+			this.field = field;
+		}
+
+		/**
+		 * Get the current suggester.
+		 * @return the suggester, or <em>null</em> if none built yet
+		 */
+		TermSuggester get() {
+			return suggester;
+		}
+
+		/**
+		 * Build a new suggester from a reader, unless already built from it.
+		 * @param indexReader the reader
+		 * @return the suggester
+		 * @throws IOException if an IO error occurs
+		 */
+		synchronized TermSuggester update(IndexReader indexReader) throws IOException {
+			if ( indexReader.getVersion() != version || suggester == null ) {
+				suggester = build(indexReader, field);
+				version = indexReader.getVersion();
+			}
+			return suggester;
+		}
+
+		@Override
+		public String toString() {
+			TermSuggester s = suggester;
+			return (s == null ? "TermSuggester{" +field +": not built}" : s.toString());
+		}
+	}
+
+}
@@ -0,0 +1,216 @@
+/* ===================================================================
+ * TrieUtils.java
+ *
+ * Created Oct 19, 2026 3:48:20 PM
+ *
+ * Copyright (c) 2026 Matt Magoffin.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ===================================================================
+ * $Id$
+ * ===================================================================
+ */
+
+package magoffin.matt.lucene;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreRangeQuery;
+import org.apache.lucene.search.Query;
+
+/**
+ * Utilities for indexing long values (such as dates in milliseconds) as
+ * "trie" terms, so that range queries on them need only a small, fixed
+ * number of term ranges no matter how wide the range is.
+ * 
+ * <p>Each value is indexed as one term per precision level: the full value,
+ * the value with its lowest <code>precisionStep</code> bits removed, with 
+ * the lowest <code>2 * precisionStep</code> bits removed, and so on. A range
+ * query is then split into sub-ranges at the coarsest precision that fits 
+ * each part of the range, so a range covering years of millisecond dates 
+ * visits about as many terms as a range covering a few seconds. This is 
+ * the same scheme as Lucene's later <code>NumericUtils</code>.</p>
+ * 
+ * <p>Terms are encoded as a precision level character followed by the 
+ * remaining bits of the value in fixed-width hex, so terms of the same 
+ * level sort in numeric order. Because each document has several terms 
+ * for the field, the field cannot be used for sorting; index the value in
+ * a separate field for that.</p>
+ *
+ * @author matt
+ * @version $Revision$ $Date$
+ */
+public final class TrieUtils {
+
+	/** The default precision step. */
+	public static final int DEFAULT_PRECISION_STEP = 8;
+	
+	private static final char SHIFT_START = ' ';
+	private static final int LONG_BITS = 64;
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	// not instantiable
+	private TrieUtils() {
+		super();
+	}
+	
+	/**
+	 * Encode a long value as a term at a given precision level.
+	 * 
+	 * @param value the value
+	 * @param shift the number of low bits to remove from the value
+	 * @return the encoded term text
+	 */
+	public static String longToPrefixCoded(long value, int shift) {
+		if ( shift < 0 || shift >= LONG_BITS ) {
+			throw new IllegalArgumentException("The shift parameter must be between 0 and 63");
+		}
+		// flip the sign bit so negative values sort before positive values
+		long sortable = (value ^ Long.MIN_VALUE) >>> shift;
+		int numDigits = (LONG_BITS - shift + 3) >> 2;
+		char[] buf = new char[numDigits + 1];
+		buf[0] = (char)(SHIFT_START + shift);
+		for ( int i = numDigits; i > 0; i-- ) {
+			buf[i] = HEX[(int)(sortable & 0xF)];
+			sortable >>>= 4;
+		}
+		return new String(buf);
+	}
+	
+	/**
+	 * Get all the terms to index for a long value.
+	 * 
+	 * @param value the value
+	 * @param precisionStep the precision step
+	 * @return the terms, from full precision to lowest precision
+	 */
+	public static String[] longToPrefixCodedTerms(long value, int precisionStep) {
+		checkPrecisionStep(precisionStep);
+		String[] terms = new String[(LONG_BITS - 1) / precisionStep + 1];
+		for ( int i = 0; i < terms.length; i++ ) {
+			terms[i] = longToPrefixCoded(value, i * precisionStep);
+		}
+		return terms;
+	}
+	
+	/**
+	 * Add the terms for a long value to a Document as un-stored fields.
+	 * 
+	 * @param doc the document
+	 * @param field the field name
+	 * @param value the value
+	 * @param precisionStep the precision step
+	 */
+	public static void addLongField(Document doc, String field, long value, 
+			int precisionStep) {
+		for ( String term : longToPrefixCodedTerms(value, precisionStep) ) {
+			Field f = new Field(field, term, Field.Store.NO, 
+					Field.Index.NOT_ANALYZED_NO_NORMS);
+			f.setOmitTf(true);
+			doc.add(f);
+		}
+	}
+	
+	/**
+	 * Create a query for a range of long values indexed with 
+	 * {@link #addLongField(Document, String, long, int)}.
+	 * 
+	 * <p>The returned query is a BooleanQuery of at most 
+	 * <code>2 * (64 / precisionStep)</code> constant score range queries.</p>
+	 * 
+	 * @param field the field name
+	 * @param precisionStep the precision step the field was indexed with
+	 * @param min the lower bound, or <em>null</em> for no lower bound
+	 * @param max the upper bound, or <em>null</em> for no upper bound
+	 * @param minInclusive <em>true</em> if the lower bound is inclusive
+	 * @param maxInclusive <em>true</em> if the upper bound is inclusive
+	 * @return the query
+	 */
+	public static Query newLongRangeQuery(String field, int precisionStep, 
+			Long min, Long max, boolean minInclusive, boolean maxInclusive) {
+		checkPrecisionStep(precisionStep);
+		BooleanQuery query = new BooleanQuery(true);
+		long minBound = Long.MIN_VALUE;
+		if ( min != null ) {
+			minBound = min.longValue();
+			if ( !minInclusive ) {
+				if ( minBound == Long.MAX_VALUE ) {
+					return query;
+				}
+				minBound++;
+			}
+		}
+		long maxBound = Long.MAX_VALUE;
+		if ( max != null ) {
+			maxBound = max.longValue();
+			if ( !maxInclusive ) {
+				if ( maxBound == Long.MIN_VALUE ) {
+					return query;
+				}
+				maxBound--;
+			}
+		}
+		if ( minBound > maxBound ) {
+			return query;
+		}
+		splitRange(query, field, precisionStep, minBound, maxBound);
+		return query;
+	}
+	
+	private static void splitRange(BooleanQuery query, String field, int precisionStep, 
+			long minBound, long maxBound) {
+		for ( int shift = 0; ; shift += precisionStep ) {
+			final long diff = 1L << (shift + precisionStep);
+			final long mask = ((1L << precisionStep) - 1L) << shift;
+			final boolean hasLower = (minBound & mask) != 0L;
+			final boolean hasUpper = (maxBound & mask) != mask;
+			final long nextMinBound = (hasLower ? (minBound + diff) : minBound) & ~mask;
+			final long nextMaxBound = (hasUpper ? (maxBound - diff) : maxBound) & ~mask;
+			final boolean lowerWrapped = nextMinBound < minBound;
+			final boolean upperWrapped = nextMaxBound > maxBound;
+			
+			if ( shift + precisionStep >= LONG_BITS || nextMinBound > nextMaxBound 
+					|| lowerWrapped || upperWrapped ) {
+				// this is the last level, so cover what remains of the range
+				addRange(query, field, minBound, maxBound, shift);
+				break;
+			}
+			if ( hasLower ) {
+				addRange(query, field, minBound, minBound | mask, shift);
+			}
+			if ( hasUpper ) {
+				addRange(query, field, maxBound & ~mask, maxBound, shift);
+			}
+			minBound = nextMinBound;
+			maxBound = nextMaxBound;
+		}
+	}
+	
+	private static void addRange(BooleanQuery query, String field, long minBound, 
+			long maxBound, int shift) {
+		query.add(new ConstantScoreRangeQuery(field, longToPrefixCoded(minBound, shift), 
+				longToPrefixCoded(maxBound, shift), true, true), Occur.SHOULD);
+	}
+	
+	private static void checkPrecisionStep(int precisionStep) {
+		if ( precisionStep < 1 || precisionStep > LONG_BITS ) {
+			throw new IllegalArgumentException("The precisionStep parameter must be between 1 and 64");
+		}
+	}
+	
+}